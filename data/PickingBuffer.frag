@@ -1,5 +1,5 @@
-uniform vec3 id;
+uniform vec4 id;
 
 void main() {
-  gl_FragColor = vec4(id, 1.0);
-}
\ No newline at end of file
+  gl_FragColor = id;
+}
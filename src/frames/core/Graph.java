@@ -21,9 +21,13 @@ import frames.timing.Animator;
 import frames.timing.TimingHandler;
 import frames.timing.TimingTask;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A 2D or 3D scene graph providing eye, input and timing handling to a raster or ray-tracing
@@ -120,6 +124,11 @@ public class Graph {
   protected float _coefficients[][];
   protected boolean _coefficientsUpdate;
   protected Vector _normal[];
+  protected float[] _planes;
+  // incremented each time the boundary equations are computed
+  protected long _boundaryVersion;
+  // batch visibility scratch arrays
+  protected float[][] _scratch = new float[8][];
   protected float _distance[];
   // rescale ortho when anchor changes
   protected float _rapK = 1;
@@ -138,12 +147,77 @@ public class Graph {
 
   // 4. Graph
   protected List<Node> _seeds;
+  protected int _seedHoles;
   protected int _nodeCount;
+  // picking ids, recycled on pruneBranch(), see Node._id()
+  protected int _pickingIdCount, _freePickingIdCount;
+  protected int[] _freePickingIds = new int[16];
+  protected int _pickingIdLimit = 1 << 24;
   protected long _lastNonEyeUpdate = 0;
+  // flattened pre-order traversal
+  protected Node[] _order;
+  protected int[] _parents;
+  protected int[] _sizes;
+  protected int[] _ends;
+  protected int _orderSize;
+  protected boolean _orderOutdated = true;
+  // reachable nodes registry
+  protected List<Node> _nodes;
+  protected Node[] _registry;
+  // world matrices, indexed as the flattened pre-order
+  protected float[] _worldMatrices;
+  protected Node[] _worldMatricesOrder;
+  protected int _worldMatricesGrain = 1024;
+  // aggregated branch bounds, indexed as the flattened pre-order
+  protected boolean _boundingVolumes;
+  protected boolean _boundsOutdated = true;
+  protected float[] _bounds, _previousBounds;
+  protected Node[] _boundsOrder;
+  protected int[] _visibilityMasks;
+  protected long _boundsVersion;
+  // node world bounding balls and their hierarchy, see pick()
+  protected float[] _volumes;
+  protected long _bvhVersion = -1;
+  protected Node[] _bvhOrder;
+  protected int _bvhSize, _bvhItemCount, _bvhDepth;
+  protected int[] _bvhItems, _bvhFirsts, _bvhCounts, _bvhNodeStack;
+  protected float[] _bvhBoxes, _bvhEntryStack;
+  protected float[] _rayScratch = new float[6];
+  // projected node positions, indexed as the flattened pre-order
+  protected boolean _screenOutdated = true;
+  protected float[] _screen;
+  protected Node[] _screenOrder;
+  protected float[] _screenProjectionView = new float[16];
+  protected int _screenWidth, _screenHeight;
+  protected long _screenVersion;
+  // tracking grid, see trackingCandidates()
+  protected boolean _trackingGrid;
+  protected long _gridVersion = -1;
+  protected int _gridColumns, _gridRows, _gridSize, _exactCount;
+  protected int[] _cellStarts, _cellItems, _cellFill, _cellRanges, _exactItems;
+  protected float[] _halfThresholds;
+  protected List<Node> _candidates = new ArrayList<Node>();
 
   // 5. IKinematics solvers
   protected List<TreeSolver> _solvers;
 
+  // 6. Transform store
+  protected boolean _transformStore;
+  protected float[] _translations;
+  protected float[] _rotations;
+  protected float[] _scalings;
+  protected int[] _references;
+
+  /**
+   * Side length, in pixels, of the screen cells used by {@link #trackingCandidates(float, float)}.
+   */
+  public static int TRACKING_GRID_CELL = 32;
+
+  /**
+   * Maximum number of nodes per leaf of the bounding volume hierarchy used by
+   * {@link #pick(Vector, Vector, float[])}.
+   */
+  public static int BVH_LEAF_SIZE = 4;
 
   /**
    * Enumerates the different visibility states an object may have respect to the eye
@@ -565,17 +639,19 @@ public class Graph {
    * @see #pruneBranch(Node)
    */
   public List<Node> leadingNodes() {
+    if (_seedHoles > 0)
+      _seedHoles = _compact(_seeds);
     return _seeds;
   }
 
   /**
    * Returns {@code true} if the node is top-level.
+   * <p>
+   * Membership is checked in constant time from the node {@code _slot}, i.e., its index
+   * within the {@link #leadingNodes()} list.
    */
   protected boolean _isLeadingNode(Node node) {
-    for (Node _node : leadingNodes())
-      if (_node == node)
-        return true;
-    return false;
+    return node != null && node._slot >= 0 && node._slot < _seeds.size() && _seeds.get(node._slot) == node;
   }
 
   /**
@@ -586,23 +662,67 @@ public class Graph {
       return false;
     if (_isLeadingNode(node))
       return false;
-    return leadingNodes().add(node);
+    _invalidateOrder();
+    node._slot = _seeds.size();
+    return _seeds.add(node);
   }
 
   /**
    * Removes the leading node if present. Typically used when re-parenting the node.
+   * <p>
+   * To keep the removal constant time while preserving the relative order of the
+   * remaining leading nodes, the node entry is just emptied and the list is compacted
+   * lazily.
+   *
+   * @see #_compact(List)
    */
   protected boolean _removeLeadingNode(Node node) {
-    boolean result = false;
-    Iterator<Node> it = leadingNodes().iterator();
-    while (it.hasNext()) {
-      if (it.next() == node) {
-        it.remove();
-        result = true;
-        break;
+    if (!_isLeadingNode(node))
+      return false;
+    _seedHoles = _remove(_seeds, node, _seedHoles);
+    _invalidateOrder();
+    return true;
+  }
+
+  /**
+   * Internal use. Empties the {@code node} entry in {@code list}, which should be either
+   * the graph leading nodes or some node children, and returns the updated number of
+   * {@code holes} in the list.
+   */
+  protected static int _remove(List<Node> list, Node node, int holes) {
+    int last = list.size() - 1;
+    if (node._slot == last) {
+      list.remove(last);
+      // trailing holes may be dropped right away
+      while (holes > 0 && list.get(--last) == null) {
+        list.remove(last);
+        holes--;
       }
+    } else {
+      list.set(node._slot, null);
+      holes++;
+      if (2 * holes > list.size())
+        holes = _compact(list);
     }
-    return result;
+    node._slot = -1;
+    return holes;
+  }
+
+  /**
+   * Internal use. Removes the holes left in {@code list} by {@link #_remove(List, Node, int)},
+   * updating the node {@code _slot}s accordingly, and returns {@code 0}.
+   */
+  protected static int _compact(List<Node> list) {
+    int size = 0;
+    for (int i = 0; i < list.size(); i++) {
+      Node node = list.get(i);
+      if (node != null) {
+        node._slot = size;
+        list.set(size++, node);
+      }
+    }
+    list.subList(size, list.size()).clear();
+    return 0;
   }
 
   /**
@@ -610,6 +730,15 @@ public class Graph {
    * by each traversed node, and calling {@link Node#visit()} on it.
    * <p>
    * Note that only reachable nodes are visited by this algorithm.
+   * <p>
+   * The hierarchy is visited as a linear sweep over a flattened pre-order of the nodes,
+   * which is cached and only rebuilt when the hierarchy topology changes (e.g., with
+   * {@link Node#setReference(Node)}, {@link #pruneBranch(Node)} or
+   * {@link #appendBranch(List)}).
+   * <p>
+   * When the graph bounding volumes are enabled, a hierarchical culling pass is run first
+   * and the branches lying outside the eye boundary are skipped (see
+   * {@link #enableBoundingVolumes(boolean)} and {@link #updateVisibility()}).
    *
    * <b>Attention:</b> this method should be called after {@link #preDraw()} (i.e.,
    * eye update) and before any other transformation of the modelview matrix takes place.
@@ -618,31 +747,126 @@ public class Graph {
    * @see #pruneBranch(Node)
    */
   public void traverse() {
-    for (Node node : leadingNodes())
+    _updateOrder();
+    boolean bounded = areBoundingVolumesEnabled() && _coefficients != null;
+    if (bounded)
+      updateVisibility();
+    // keep local references since visit() may modify the hierarchy
+    Node[] order = _order;
+    int[] sizes = _sizes;
+    int[] ends = _ends;
+    int size = _orderSize;
+    int depth = 0;
+    int index = 0;
+    while (index < size) {
+      while (depth > 0 && index >= ends[depth - 1]) {
+        _leave();
+        depth--;
+      }
+      // skip the branches outside the eye boundary
+      if (bounded && order[index]._visibility == Visibility.INVISIBLE) {
+        index += sizes[index];
+        continue;
+      }
+      Node node = order[index];
       _visit(node);
+      ends[depth++] = index + sizes[index];
+      index += node.isCulled() ? sizes[index] : 1;
+    }
+    while (depth-- > 0)
+      _leave();
   }
 
   /**
-   * Used by the traversal algorithm.
+   * Used by the traversal algorithm. Saves the current model-view, applies the node
+   * local transformation and calls {@link Node#visit()} on it. Children are visited
+   * afterwards, before the matching {@link #_leave()} call.
    */
   protected void _visit(Node node) {
     pushModelView();
     applyTransformation(node);
     node.visit();
-    if (!node.isCulled())
-      for (Node child : node.children())
-        _visit(child);
+  }
+
+  /**
+   * Used by the traversal algorithm. Restores the model-view saved by the matching
+   * {@link #_visit(Node)} call.
+   */
+  protected void _leave() {
     popModelView();
   }
 
+  /**
+   * Internal use. Flags the cached traversal order as outdated. Automatically called
+   * when the hierarchy topology changes.
+   */
+  protected void _invalidateOrder() {
+    _orderOutdated = true;
+  }
+
+  /**
+   * Internal use. Rebuilds the flattened pre-order of the reachable nodes (together with
+   * the index of each node reference and the size of each node branch), the
+   * {@link #nodes()} registry and the {@link #node(int)} lookup table, but only if the
+   * hierarchy topology has changed since they were last built.
+   */
+  protected void _updateOrder() {
+    if (!_orderOutdated)
+      return;
+    ArrayList<Node> list = new ArrayList<Node>();
+    for (Node node : leadingNodes())
+      _collectNodes(list, node);
+    int size = list.size();
+    Node[] order = list.toArray(new Node[size]);
+    int[] parents = new int[size];
+    int[] sizes = new int[size];
+    // a branch spans the nodes following it up to the next node with a lower depth
+    int[] stack = new int[size];
+    int depth = 0;
+    for (int i = 0; i < size; i++) {
+      sizes[i] = 1;
+      Node reference = order[i].reference();
+      while (depth > 0 && order[stack[depth - 1]] != reference)
+        depth--;
+      parents[i] = depth > 0 ? stack[depth - 1] : -1;
+      stack[depth++] = i;
+    }
+    for (int i = size - 1; i >= 0; i--)
+      if (parents[i] >= 0)
+        sizes[parents[i]] += sizes[i];
+    _order = order;
+    _parents = parents;
+    _sizes = sizes;
+    _ends = stack;
+    _orderSize = size;
+    _nodes = Collections.unmodifiableList(list);
+    // ids are usually below the node count, but make room for any other one
+    int maxId = _nodeCount;
+    for (int i = 0; i < size; i++)
+      maxId = Math.max(maxId, order[i].id());
+    if (_registry == null || _registry.length <= maxId)
+      _registry = new Node[maxId + 1];
+    else
+      Arrays.fill(_registry, null);
+    for (int i = 0; i < size; i++) {
+      order[i]._index = i;
+      // the first node in traversal order wins should two of them share an id
+      if (order[i].id() > 0 && _registry[order[i].id()] == null)
+        _registry[order[i].id()] = order[i];
+    }
+    _orderOutdated = false;
+  }
+
   /**
    * Same as {@code for(Node node : leadingNodes()) pruneBranch(node)}.
    *
    * @see #pruneBranch(Node)
    */
   public void clear() {
-    for (Node node : leadingNodes())
-      pruneBranch(node);
+    // pruning removes the node from the leading nodes list
+    for (int i = _seeds.size() - 1; i >= 0; i--)
+      if (_seeds.get(i) != null)
+        pruneBranch(_seeds.get(i));
   }
 
   /**
@@ -678,16 +902,45 @@ public class Graph {
       return null;
     ArrayList<Node> list = new ArrayList<Node>();
     _collectNodes(list, node);
+    // detach the branch root, then drop the (pruned) descendants wholesale
+    if (node.reference() != null)
+      node.reference()._removeChild(node);
+    else
+      _removeLeadingNode(node);
     for (Node _node : list) {
       inputHandler().removeGrabber(_node);
-      if (_node.reference() != null)
-        _node.reference()._removeChild(_node);
-      else
-        _removeLeadingNode(_node);
+      _node._clearChildren();
+      _releasePickingId(_node);
     }
     return list;
   }
 
+  /**
+   * Internal use. Returns a picking id (see {@code Node._id()}) not used by any other node,
+   * recycling those released by pruned nodes first.
+   */
+  protected int _allocatePickingId() {
+    if (_freePickingIdCount > 0)
+      return _freePickingIds[--_freePickingIdCount];
+    // id 0 is reserved for the background
+    if (_pickingIdCount + 1 >= _pickingIdLimit)
+      throw new RuntimeException("Maximum picking ids reached (" + (_pickingIdLimit - 1) + "). Prune the nodes which are no longer needed!");
+    return ++_pickingIdCount;
+  }
+
+  /**
+   * Internal use. Releases the {@code node} picking id (if any), so that it may be
+   * reused by other nodes. The node gets a new one if it is picked again.
+   */
+  protected void _releasePickingId(Node node) {
+    if (node._pickingId == 0)
+      return;
+    if (_freePickingIdCount == _freePickingIds.length)
+      _freePickingIds = Arrays.copyOf(_freePickingIds, 2 * _freePickingIds.length);
+    _freePickingIds[_freePickingIdCount++] = node._pickingId;
+    node._pickingId = 0;
+  }
+
   /**
    * Appends the branch which typically should come from the one pruned (and cached) with
    * {@link #pruneBranch(Node)}.
@@ -726,16 +979,42 @@ public class Graph {
 
   /**
    * Returns a list of all the nodes that are reachable by the {@link #traverse()}
-   * algorithm.
+   * algorithm, in traversal order.
+   * <p>
+   * The returned list is a new copy which the caller may freely modify. Use
+   * {@link #reachableNodes()} to enumerate the nodes without allocating anything.
    *
+   * @see #node(int)
    * @see #isNodeReachable(Node)
    * @see Node#isEye()
    */
   public ArrayList<Node> nodes() {
-    ArrayList<Node> list = new ArrayList<Node>();
-    for (Node node : leadingNodes())
-      _collectNodes(list, node);
-    return list;
+    return new ArrayList<Node>(reachableNodes());
+  }
+
+  /**
+   * Same as {@link #nodes()}, but returns a read-only registry which is only rebuilt after
+   * the hierarchy topology changes, so enumerating it doesn't allocate anything. Note that
+   * it isn't affected by later topology changes, i.e., call this method again after
+   * modifying the hierarchy.
+   *
+   * @see #node(int)
+   */
+  public List<Node> reachableNodes() {
+    _updateOrder();
+    return _nodes;
+  }
+
+  /**
+   * Returns the reachable node which {@link Node#id()} is {@code id}, or {@code null} if
+   * there's none.
+   *
+   * @see #nodes()
+   * @see #isNodeReachable(Node)
+   */
+  public Node node(int id) {
+    _updateOrder();
+    return id > 0 && id < _registry.length ? _registry[id] : null;
   }
 
   /**
@@ -755,29 +1034,56 @@ public class Graph {
    * <p>
    * If {@code tip} is descendant of {@code tail} the returned list will include both of them.
    * Otherwise it will be empty.
+   *
+   * @see #isAncestor(Node, Node)
    */
   public ArrayList<Node> branch(Node tail, Node tip) {
     ArrayList<Node> list = new ArrayList<Node>();
-    //1. Check if tip is a tail descendant
-    boolean desc = false;
-    ArrayList<Node> descList = branch(tail);
-    for (Node node : descList)
-      if (node == tip) {
-        desc = true;
-        break;
-      }
-    //2. If so, return the path between the two
-    if (desc) {
-      Node _tip = tip;
-      while (_tip != tail) {
-        list.add(0, _tip);
-        _tip = _tip.reference();
-      }
-      list.add(0, tail);
-    }
+    if (!isAncestor(tail, tip))
+      return list;
+    for (Node node = tip; node != tail; node = node.reference())
+      list.add(node);
+    list.add(tail);
+    Collections.reverse(list);
     return list;
   }
 
+  /**
+   * Returns {@code true} if {@code node} is {@code ancestor} or one of its descendants, and
+   * {@code false} otherwise.
+   * <p>
+   * When both nodes are reachable the test takes constant time, since the branch of
+   * {@code ancestor} spans a contiguous interval of the cached traversal pre-order.
+   * Otherwise {@code node} references are walked upwards.
+   *
+   * @see #branch(Node, Node)
+   * @see #isNodeReachable(Node)
+   */
+  public boolean isAncestor(Node ancestor, Node node) {
+    if (ancestor == null || node == null)
+      return false;
+    if (ancestor == node)
+      return true;
+    _updateOrder();
+    if (_isOrdered(ancestor) && _isOrdered(node))
+      return ancestor._index < node._index && node._index < ancestor._index + _sizes[ancestor._index];
+    for (Node child = node, reference = node.reference(); reference != null; child = reference, reference = reference.reference()) {
+      if (!reference._hasChild(child))
+        return false;
+      if (reference == ancestor)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Internal use. Returns {@code true} if {@code node} belongs to the cached traversal
+   * pre-order, i.e., if it is reachable.
+   */
+  protected boolean _isOrdered(Node node) {
+    return node._index < _orderSize && _order[node._index] == node;
+  }
+
   /**
    * Collects {@code node} and all its descendant nodes. Note that for a node to be collected
    * it must be reachable.
@@ -792,6 +1098,336 @@ public class Graph {
       _collectNodes(list, child);
   }
 
+  // Transform store
+
+  /**
+   * Disables the graph transform store.
+   *
+   * @see #enableTransformStore(boolean)
+   */
+  public void disableTransformStore() {
+    enableTransformStore(false);
+  }
+
+  /**
+   * Enables the graph transform store.
+   *
+   * @see #enableTransformStore(boolean)
+   */
+  public void enableTransformStore() {
+    enableTransformStore(true);
+  }
+
+  /**
+   * Enables or disables the graph transform store according to {@code flag}. Disabled
+   * by default.
+   * <p>
+   * When enabled, the graph keeps a copy of the local {@link Node#translation()},
+   * {@link Node#rotation()}, {@link Node#scaling()} and {@link Node#reference()} of all
+   * its nodes in contiguous primitive arrays indexed by {@link Node#id()} (see
+   * {@link #translations()}, {@link #rotations()}, {@link #scalings()} and
+   * {@link #references()}), so that hierarchy updates may be performed without chasing
+   * the node objects. Nodes write their transformation into the store each time they are
+   * modified (see {@link Node#lastUpdate()}).
+   * <p>
+   * Note that the store is a mirror: the nodes still own their {@link Node#translation()}
+   * and {@link Node#rotation()} objects, so it's only valid for transformations set
+   * through the node API (e.g., {@link Node#setTranslation(Vector)},
+   * {@link Node#rotate(Quaternion)}), which flags the node as modified. Components changed
+   * directly on the returned objects (e.g., {@code node.translation().setX(1)}) aren't
+   * seen by the store until the node is modified again.
+   *
+   * @see #isTransformStoreEnabled()
+   */
+  public void enableTransformStore(boolean flag) {
+    if (flag == _transformStore)
+      return;
+    _transformStore = flag;
+    if (flag) {
+      _translations = new float[3 * (_nodeCount + 1)];
+      _rotations = new float[4 * (_nodeCount + 1)];
+      _scalings = new float[_nodeCount + 1];
+      _references = new int[_nodeCount + 1];
+      for (Node node : reachableNodes())
+        _store(node);
+    } else {
+      _translations = null;
+      _rotations = null;
+      _scalings = null;
+      _references = null;
+    }
+  }
+
+  /**
+   * Returns {@code true} if the graph transform store is enabled and {@code false}
+   * otherwise.
+   *
+   * @see #enableTransformStore(boolean)
+   */
+  public boolean isTransformStoreEnabled() {
+    return _transformStore;
+  }
+
+  /**
+   * Returns the node translations held by the transform store, or {@code null} if the
+   * store isn't enabled. The translation of the node with {@link Node#id()} {@code i}
+   * is found at {@code [3*i, 3*i+2]}.
+   * <p>
+   * The array is owned by the graph: don't modify it and don't keep a reference to it
+   * since it may be reallocated as new nodes are added. It mirrors the nodes as of their
+   * last modification, see {@link #enableTransformStore(boolean)}.
+   *
+   * @see #enableTransformStore(boolean)
+   */
+  public float[] translations() {
+    return _translations;
+  }
+
+  /**
+   * Returns the node rotations (as {@code x, y, z, w} quaternion components) held by the
+   * transform store, or {@code null} if the store isn't enabled. The rotation of the node
+   * with {@link Node#id()} {@code i} is found at {@code [4*i, 4*i+3]}.
+   *
+   * @see #translations()
+   */
+  public float[] rotations() {
+    return _rotations;
+  }
+
+  /**
+   * Returns the node scalings held by the transform store, or {@code null} if the store
+   * isn't enabled. The scaling of the node with {@link Node#id()} {@code i} is found at
+   * {@code [i]}.
+   *
+   * @see #translations()
+   */
+  public float[] scalings() {
+    return _scalings;
+  }
+
+  /**
+   * Returns the {@link Node#id()} of the node references held by the transform store, or
+   * {@code null} if the store isn't enabled. The reference id of the node with
+   * {@link Node#id()} {@code i} is found at {@code [i]}. Leading nodes have a {@code 0}
+   * reference id.
+   *
+   * @see #translations()
+   */
+  public int[] references() {
+    return _references;
+  }
+
+  /**
+   * Internal use. Writes the {@code node} local transformation into the transform store.
+   */
+  protected void _store(Node node) {
+    int id = node.id();
+    if (id >= _scalings.length) {
+      int capacity = Math.max(id + 1, 2 * _scalings.length);
+      _translations = Arrays.copyOf(_translations, 3 * capacity);
+      _rotations = Arrays.copyOf(_rotations, 4 * capacity);
+      _scalings = Arrays.copyOf(_scalings, capacity);
+      _references = Arrays.copyOf(_references, capacity);
+    }
+    System.arraycopy(node.translation()._vector, 0, _translations, 3 * id, 3);
+    System.arraycopy(node.rotation()._quaternion, 0, _rotations, 4 * id, 4);
+    _scalings[id] = node.scaling();
+    _references[id] = node.reference() == null ? 0 : node.reference().id();
+  }
+
+  /**
+   * Internal use. Writes the local transformation matrix of the node whose
+   * {@link Node#id()} is {@code id}, as read from the transform store, into the 16
+   * {@code matrix} elements starting at {@code offset} (column-major order).
+   *
+   * @see Node#matrix()
+   */
+  protected void _storedMatrix(int id, float[] matrix, int offset) {
+    _matrix(_translations[3 * id], _translations[3 * id + 1], _translations[3 * id + 2],
+        _rotations[4 * id], _rotations[4 * id + 1], _rotations[4 * id + 2], _rotations[4 * id + 3],
+        _scalings[id], matrix, offset);
+  }
+
+  /**
+   * Internal use. Writes the matrix defined from the translation {@code (tx, ty, tz)},
+   * the rotation quaternion {@code (x, y, z, w)} and the scaling {@code s}, into the 16
+   * {@code matrix} elements starting at {@code offset} (column-major order).
+   */
+  protected static void _matrix(float tx, float ty, float tz, float x, float y, float z, float w, float s, float[] matrix, int offset) {
+    float q00 = 2.0f * x * x;
+    float q11 = 2.0f * y * y;
+    float q22 = 2.0f * z * z;
+    float q01 = 2.0f * x * y;
+    float q02 = 2.0f * x * z;
+    float q03 = 2.0f * x * w;
+    float q12 = 2.0f * y * z;
+    float q13 = 2.0f * y * w;
+    float q23 = 2.0f * z * w;
+    matrix[offset] = (1.0f - q11 - q22) * s;
+    matrix[offset + 1] = (q01 + q23) * s;
+    matrix[offset + 2] = (q02 - q13) * s;
+    matrix[offset + 3] = 0;
+    matrix[offset + 4] = (q01 - q23) * s;
+    matrix[offset + 5] = (1.0f - q22 - q00) * s;
+    matrix[offset + 6] = (q12 + q03) * s;
+    matrix[offset + 7] = 0;
+    matrix[offset + 8] = (q02 + q13) * s;
+    matrix[offset + 9] = (q12 - q03) * s;
+    matrix[offset + 10] = (1.0f - q11 - q00) * s;
+    matrix[offset + 11] = 0;
+    matrix[offset + 12] = tx;
+    matrix[offset + 13] = ty;
+    matrix[offset + 14] = tz;
+    matrix[offset + 15] = 1;
+  }
+
+  // World matrices update
+
+  /**
+   * Returns the approximate number of nodes per task used by
+   * {@link #updateWorldMatrices(ForkJoinPool)}. Default is 1024.
+   *
+   * @see #setWorldMatricesGrain(int)
+   */
+  public int worldMatricesGrain() {
+    return _worldMatricesGrain;
+  }
+
+  /**
+   * Sets the {@link #worldMatricesGrain()}. Smaller values split the computation into
+   * more tasks.
+   */
+  public void setWorldMatricesGrain(int grain) {
+    if (grain < 1)
+      throw new RuntimeException("World matrices grain should be positive");
+    _worldMatricesGrain = grain;
+  }
+
+  /**
+   * Same as {@code updateWorldMatrices(ForkJoinPool.commonPool())}.
+   *
+   * @see #updateWorldMatrices(ForkJoinPool)
+   */
+  public void updateWorldMatrices() {
+    updateWorldMatrices(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Computes the world matrices of all the nodes reachable by the {@link #traverse()}
+   * algorithm, which may then be retrieved with {@link #worldMatrix(Node)}.
+   * <p>
+   * Since the world matrices of independent branches don't depend on each other, the
+   * computation is split by branch and run on the fork-join {@code pool}, in chunks of
+   * roughly {@link #worldMatricesGrain()} nodes. Pass a {@code null} {@code pool} to
+   * compute them sequentially on the calling thread. The method returns once all the
+   * world matrices have been computed.
+   * <p>
+   * The local transformations are read from the transform store when it is enabled (see
+   * {@link #enableTransformStore(boolean)}), and from the nodes otherwise.
+   *
+   * <b>Attention:</b> The hierarchy should not be modified while this method runs. Note
+   * that rendering (i.e., {@link #traverse()}) is not affected by this method.
+   *
+   * @see #worldMatrix(Node)
+   */
+  public void updateWorldMatrices(ForkJoinPool pool) {
+    _updateOrder();
+    if (_worldMatrices == null || _worldMatrices.length < 16 * _orderSize)
+      _worldMatrices = new float[16 * _orderSize];
+    if (pool == null || _orderSize <= _worldMatricesGrain)
+      _updateWorldMatrices(0, _orderSize);
+    else
+      pool.invoke(new WorldMatricesTask(0, _orderSize));
+    _worldMatricesOrder = _order;
+  }
+
+  /**
+   * Returns the world matrix of {@code node} computed by the last call to
+   * {@link #updateWorldMatrices()}, or {@code null} if {@code node} wasn't reachable
+   * then (or the hierarchy topology has changed since).
+   * <p>
+   * The returned matrix matches {@code node.worldMatrix()} provided the node
+   * hierarchy hasn't been modified since the last update.
+   *
+   * @see #updateWorldMatrices(ForkJoinPool)
+   * @see Node#worldMatrix()
+   */
+  public Matrix worldMatrix(Node node) {
+    if (_worldMatricesOrder == null || _worldMatricesOrder != _order || _orderOutdated)
+      return null;
+    if (!_isOrdered(node))
+      return null;
+    Matrix matrix = new Matrix();
+    System.arraycopy(_worldMatrices, 16 * node._index, matrix._matrix, 0, 16);
+    return matrix;
+  }
+
+  /**
+   * Internal use. Sequentially computes the world matrices of the nodes within the
+   * {@code [from, to)} range of the flattened pre-order. The world matrices of the
+   * references of the nodes lying outside the range should already be computed.
+   */
+  protected void _updateWorldMatrices(int from, int to) {
+    float[] m = _worldMatrices;
+    for (int i = from; i < to; i++) {
+      int offset = 16 * i;
+      Node node = _order[i];
+      if (isTransformStoreEnabled())
+        _storedMatrix(node.id(), m, offset);
+      else
+        _matrix(node.translation()._vector[0], node.translation()._vector[1], node.translation()._vector[2],
+            node.rotation()._quaternion[0], node.rotation()._quaternion[1], node.rotation()._quaternion[2], node.rotation()._quaternion[3],
+            node.scaling(), m, offset);
+      int parent = _parents[i];
+      if (parent < 0)
+        continue;
+      // both matrices are affine: world = parent x local
+      int p = 16 * parent;
+      for (int c = 0; c < 16; c += 4) {
+        float b0 = m[offset + c], b1 = m[offset + c + 1], b2 = m[offset + c + 2], b3 = m[offset + c + 3];
+        m[offset + c] = m[p] * b0 + m[p + 4] * b1 + m[p + 8] * b2 + m[p + 12] * b3;
+        m[offset + c + 1] = m[p + 1] * b0 + m[p + 5] * b1 + m[p + 9] * b2 + m[p + 13] * b3;
+        m[offset + c + 2] = m[p + 2] * b0 + m[p + 6] * b1 + m[p + 10] * b2 + m[p + 14] * b3;
+      }
+    }
+  }
+
+  /**
+   * Fork-join task used by {@link #updateWorldMatrices(ForkJoinPool)}. Its range is made of
+   * consecutive whole branches of the flattened pre-order.
+   */
+  protected class WorldMatricesTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    protected int _from, _to;
+
+    public WorldMatricesTask(int from, int to) {
+      _from = from;
+      _to = to;
+    }
+
+    @Override
+    protected void compute() {
+      int from = _from;
+      // a single branch: compute its root, then its children branches
+      while (_to - from > _worldMatricesGrain && from + _sizes[from] == _to) {
+        _updateWorldMatrices(from, from + 1);
+        from++;
+      }
+      if (_to - from <= _worldMatricesGrain) {
+        _updateWorldMatrices(from, _to);
+        return;
+      }
+      // split at the branch boundary closest to the middle of the range
+      int middle = from + (_to - from) / 2;
+      int split = from;
+      while (split + _sizes[split] <= middle)
+        split += _sizes[split];
+      if (split == from)
+        split += _sizes[split];
+      invokeAll(new WorldMatricesTask(from, split), new WorldMatricesTask(split, _to));
+    }
+  }
+
   // Input stuff
 
   /**
@@ -1131,7 +1767,8 @@ public class Graph {
   /**
    * Wrapper for {@link MatrixHandler#cacheProjectionViewInverse(boolean)}.
    * <p>
-   * Use it only when continuously calling {@link #unprojectedCoordinatesOf(Vector)}.
+   * Note that {@link #unprojectedCoordinatesOf(Vector)} lazily maintains the inverse
+   * anyway. Caching it just computes it eagerly, every time the eye is bound.
    *
    * @see #isProjectionViewInverseCached()
    * @see #unprojectedCoordinatesOf(Vector)
@@ -1332,6 +1969,216 @@ public class Graph {
     return Visibility.SEMIVISIBLE;
   }
 
+  /**
+   * Batch version of {@link #ballVisibility(Vector, float)}, which classifies the balls
+   * of packed world {@code centers} {@code (x0, y0, z0, x1, y1, z1, ...)} and
+   * {@code radii} {@code (r0, r1, ...)} at once.
+   * <p>
+   * The centers are first split into coordinate arrays and then classified with
+   * {@link #ballVisibility(float[], float[], float[], float[], byte[])}, which should be
+   * preferred when the data is already laid out that way.
+   *
+   * @see #ballVisibility(Vector, float)
+   * @see #boxVisibility(float[], float[], byte[])
+   */
+  public byte[] ballVisibility(float[] centers, float[] radii, byte[] target) {
+    int count = radii.length;
+    if (centers.length < 3 * count)
+      throw new RuntimeException("Ball centers and radii counts don't match");
+    float[] x = _scratch(0, count), y = _scratch(1, count), z = _scratch(2, count);
+    for (int i = 0; i < count; i++) {
+      x[i] = centers[3 * i];
+      y[i] = centers[3 * i + 1];
+      z[i] = centers[3 * i + 2];
+    }
+    return _ballVisibility(x, y, z, radii, count, target);
+  }
+
+  /**
+   * Batch version of {@link #ballVisibility(Vector, float)}, which classifies the balls
+   * of world centers {@code (x[i], y[i], z[i])} and radii {@code radii[i]} at once.
+   * <p>
+   * The {@link Visibility} of the i-th ball is stored in {@code target[i]} as its
+   * {@code ordinal()}, i.e., {@code Visibility.values()[target[i]]}. A new array is
+   * allocated when {@code target} is {@code null}.
+   * <p>
+   * Planes are tested one at a time against all the balls, in a tight loop over the
+   * coordinate arrays which the JIT is able to vectorize. This is far cheaper than
+   * classifying the balls one by one.
+   *
+   * @see #ballVisibility(Vector, float)
+   * @see #boxVisibility(float[], float[], float[], float[], float[], float[], byte[])
+   */
+  public byte[] ballVisibility(float[] x, float[] y, float[] z, float[] radii, byte[] target) {
+    int count = radii.length;
+    if (x.length < count || y.length < count || z.length < count)
+      throw new RuntimeException("Ball centers and radii counts don't match");
+    return _ballVisibility(x, y, z, radii, count, target);
+  }
+
+  protected byte[] _ballVisibility(float[] x, float[] y, float[] z, float[] radii, int count, byte[] target) {
+    if (!areBoundaryEquationsEnabled())
+      System.out.println("The frustum plane equations (needed by ballVisibility) may be outdated. Please "
+          + "enable automatic updates of the equations in your PApplet.setup " + "with Scene.enableBoundaryEquations()");
+    target = _visibilityTarget(target, count);
+    float[] near = _farthest(3, count), far = _farthest(4, count);
+    float[] planes = _planes();
+    for (int p = 0; p < planes.length; p += 4) {
+      float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+      for (int i = 0; i < count; i++) {
+        float distance = a * x[i] + b * y[i] + c * z[i] - d;
+        near[i] = Math.max(near[i], distance - radii[i]);
+        far[i] = Math.max(far[i], distance + radii[i]);
+      }
+    }
+    _visibility(near, far, count, target);
+    return target;
+  }
+
+  /**
+   * Batch version of {@link #boxVisibility(Vector, Vector)}, which classifies the axis
+   * aligned boxes defined by the packed world {@code corners1} and {@code corners2}
+   * {@code (x0, y0, z0, x1, y1, z1, ...)} at once.
+   * <p>
+   * The corners are first sorted and split into coordinate arrays and then classified
+   * with {@link #boxVisibility(float[], float[], float[], float[], float[], float[], byte[])},
+   * which should be preferred when the data is already laid out that way.
+   *
+   * @see #boxVisibility(Vector, Vector)
+   * @see #ballVisibility(float[], float[], byte[])
+   */
+  public byte[] boxVisibility(float[] corners1, float[] corners2, byte[] target) {
+    if (corners1.length != corners2.length || corners1.length % 3 != 0)
+      throw new RuntimeException("Box corners counts don't match");
+    int count = corners1.length / 3;
+    float[] x1 = _scratch(0, count), y1 = _scratch(1, count), z1 = _scratch(2, count);
+    float[] x2 = _scratch(5, count), y2 = _scratch(6, count), z2 = _scratch(7, count);
+    for (int i = 0; i < count; i++) {
+      x1[i] = Math.min(corners1[3 * i], corners2[3 * i]);
+      y1[i] = Math.min(corners1[3 * i + 1], corners2[3 * i + 1]);
+      z1[i] = Math.min(corners1[3 * i + 2], corners2[3 * i + 2]);
+      x2[i] = Math.max(corners1[3 * i], corners2[3 * i]);
+      y2[i] = Math.max(corners1[3 * i + 1], corners2[3 * i + 1]);
+      z2[i] = Math.max(corners1[3 * i + 2], corners2[3 * i + 2]);
+    }
+    return _boxVisibility(x1, y1, z1, x2, y2, z2, count, target);
+  }
+
+  /**
+   * Batch version of {@link #boxVisibility(Vector, Vector)}, which classifies the axis
+   * aligned boxes of world minimum corners {@code (x1[i], y1[i], z1[i])} and maximum
+   * corners {@code (x2[i], y2[i], z2[i])} at once.
+   * <p>
+   * The {@link Visibility} of the i-th box is stored in {@code target[i]} as its
+   * {@code ordinal()}, i.e., {@code Visibility.values()[target[i]]}. A new array is
+   * allocated when {@code target} is {@code null}.
+   * <p>
+   * Only two corners of each box are tested against each plane: the one farthest along
+   * the plane normal (p-vertex) and the one farthest against it (n-vertex). Both are
+   * picked once per plane from the normal signs, so the inner loop is branch free.
+   *
+   * @see #boxVisibility(Vector, Vector)
+   * @see #ballVisibility(float[], float[], float[], float[], byte[])
+   */
+  public byte[] boxVisibility(float[] x1, float[] y1, float[] z1, float[] x2, float[] y2, float[] z2, byte[] target) {
+    int count = x1.length;
+    if (y1.length < count || z1.length < count || x2.length < count || y2.length < count || z2.length < count)
+      throw new RuntimeException("Box corners counts don't match");
+    return _boxVisibility(x1, y1, z1, x2, y2, z2, count, target);
+  }
+
+  protected byte[] _boxVisibility(float[] x1, float[] y1, float[] z1, float[] x2, float[] y2, float[] z2, int count, byte[] target) {
+    if (!areBoundaryEquationsEnabled())
+      System.out.println("The frustum plane equations (needed by boxVisibility) may be outdated. Please "
+          + "enable automatic updates of the equations in your PApplet.setup " + "with Scene.enableBoundaryEquations()");
+    target = _visibilityTarget(target, count);
+    float[] near = _farthest(3, count), far = _farthest(4, count);
+    float[] planes = _planes();
+    for (int p = 0; p < planes.length; p += 4) {
+      float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+      // n-vertex and p-vertex coordinates
+      float[] nx = a < 0 ? x2 : x1, px = a < 0 ? x1 : x2;
+      float[] ny = b < 0 ? y2 : y1, py = b < 0 ? y1 : y2;
+      float[] nz = c < 0 ? z2 : z1, pz = c < 0 ? z1 : z2;
+      for (int i = 0; i < count; i++)
+        near[i] = Math.max(near[i], a * nx[i] + b * ny[i] + c * nz[i] - d);
+      for (int i = 0; i < count; i++)
+        far[i] = Math.max(far[i], a * px[i] + b * py[i] + c * pz[i] - d);
+    }
+    _visibility(near, far, count, target);
+    return target;
+  }
+
+  /**
+   * Internal use. Returns {@code target}, or a new array if it is {@code null}, making
+   * sure it can hold {@code count} visibility ordinals.
+   */
+  protected static byte[] _visibilityTarget(byte[] target, int count) {
+    if (target == null)
+      return new byte[count];
+    if (target.length < count)
+      throw new RuntimeException("Visibility target array is too small");
+    return target;
+  }
+
+  /**
+   * Internal use. Converts the largest plane distances of the nearest ({@code near}) and
+   * farthest ({@code far}) points of each primitive into {@link Visibility} ordinals,
+   * stored in {@code target}.
+   */
+  protected static void _visibility(float[] near, float[] far, int count, byte[] target) {
+    // near <= far, hence the sum is one of the VISIBLE (0), SEMIVISIBLE (1) or
+    // INVISIBLE (2) ordinals
+    for (int i = 0; i < count; i++)
+      target[i] = (byte) ((near[i] > 0 ? 1 : 0) + (far[i] > 0 ? 1 : 0));
+  }
+
+  /**
+   * Internal use. Returns the {@code index} scratch array, which is grown to hold at least
+   * {@code count} elements if needed.
+   */
+  protected float[] _scratch(int index, int count) {
+    if (_scratch[index] == null || _scratch[index].length < count)
+      _scratch[index] = new float[count];
+    return _scratch[index];
+  }
+
+  /**
+   * Internal use. Same as {@link #_scratch(int, int)} but filling the first {@code count}
+   * elements with {@code -Float.MAX_VALUE}.
+   */
+  protected float[] _farthest(int index, int count) {
+    float[] scratch = _scratch(index, count);
+    Arrays.fill(scratch, 0, count, -Float.MAX_VALUE);
+    return scratch;
+  }
+
+  /**
+   * Internal use. Returns the eye boundary planes as packed {@code (a, b, c, d)}
+   * equations, such that the (positive outside) distance of a point to a plane is
+   * {@code a*x + b*y + c*z - d}. The 2D boundary lines are normalized.
+   */
+  protected float[] _planes() {
+    int rows = is3D() ? 6 : 4;
+    if (_planes == null || _planes.length != 4 * rows)
+      _planes = new float[4 * rows];
+    for (int i = 0; i < rows; i++) {
+      if (is3D()) {
+        _planes[4 * i] = _coefficients[i][0];
+        _planes[4 * i + 1] = _coefficients[i][1];
+        _planes[4 * i + 2] = _coefficients[i][2];
+        _planes[4 * i + 3] = _coefficients[i][3];
+      } else {
+        float norm = (float) Math.sqrt(_coefficients[i][0] * _coefficients[i][0] + _coefficients[i][1] * _coefficients[i][1]);
+        _planes[4 * i] = _coefficients[i][0] / norm;
+        _planes[4 * i + 1] = _coefficients[i][1] / norm;
+        _planes[4 * i + 2] = 0;
+        _planes[4 * i + 3] = -_coefficients[i][2] / norm;
+      }
+    }
+    return _planes;
+  }
+
   /**
    * Returns the 4 or 6 plane equations of the eye boundary.
    * <p>
@@ -1360,6 +2207,7 @@ public class Graph {
    */
   public float[][] computeBoundaryEquations() {
     _initCoefficients();
+    _boundaryVersion++;
     return is3D() ? _computeBoundaryEquations3() : _computeBoundaryEquations2();
   }
 
@@ -1636,6 +2484,271 @@ public class Graph {
           .sqrt(_coefficients[index][0] * _coefficients[index][0] + _coefficients[index][1] * _coefficients[index][1]);
   }
 
+  // Bounding volumes
+
+  /**
+   * Disables the graph bounding volumes.
+   *
+   * @see #enableBoundingVolumes(boolean)
+   */
+  public void disableBoundingVolumes() {
+    enableBoundingVolumes(false);
+  }
+
+  /**
+   * Enables the graph bounding volumes.
+   *
+   * @see #enableBoundingVolumes(boolean)
+   */
+  public void enableBoundingVolumes() {
+    enableBoundingVolumes(true);
+  }
+
+  /**
+   * Enables or disables the graph bounding volumes according to {@code flag}.
+   * <p>
+   * When enabled, the graph maintains a bounding ball for each reachable branch, which
+   * aggregates the bounding volumes of all its nodes (see
+   * {@link Node#setBoundingBall(Vector, float)} and
+   * {@link Node#setBoundingBox(Vector, Vector)}), and the {@link #traverse()} algorithm
+   * skips the branches lying outside the eye boundary. The aggregated bounds are only
+   * recomputed after some node is modified.
+   * <p>
+   * Note that nodes without a bounding volume are assumed to draw nothing by themselves,
+   * while branches having no bounding volume at all are never skipped.
+   * <p>
+   * Enabling the bounding volumes also enables the boundary equations (see
+   * {@link #enableBoundaryEquations(boolean)}).
+   *
+   * @see #areBoundingVolumesEnabled()
+   * @see #ballVisibility(Vector, float)
+   */
+  public void enableBoundingVolumes(boolean flag) {
+    _boundingVolumes = flag;
+    if (flag)
+      enableBoundaryEquations();
+  }
+
+  /**
+   * Returns {@code true} if the graph bounding volumes are enabled and {@code false}
+   * otherwise.
+   *
+   * @see #enableBoundingVolumes(boolean)
+   */
+  public boolean areBoundingVolumesEnabled() {
+    return _boundingVolumes;
+  }
+
+  /**
+   * Internal use. Flags the caches derived from the node transformations, i.e., the
+   * aggregated bounds and the {@link #projectedPositions()}, as outdated. Automatically
+   * called when a node or its bounding volume is modified.
+   */
+  protected void _invalidateNodeCaches() {
+    _boundsOutdated = true;
+    _screenOutdated = true;
+  }
+
+  /**
+   * Internal use. Computes the world bounding ball of each reachable branch (indexed as
+   * the flattened pre-order), but only if some node has been modified since they were
+   * last computed. A negative radius means the branch has no bounding volume (and hence
+   * draws nothing), while an infinite one means it has a node which may draw something
+   * but has no bounding volume (see {@link Node#_isDrawable()}), so that it's never culled.
+   */
+  protected void _updateBounds() {
+    _updateOrder();
+    if (!_boundsOutdated && _boundsOrder == _order)
+      return;
+    updateWorldMatrices();
+    int size = _orderSize;
+    // keep the previous bounds to find out which branches have moved
+    float[] previous = _bounds;
+    _bounds = _previousBounds;
+    _previousBounds = previous;
+    if (_bounds == null || _bounds.length < 4 * size)
+      _bounds = new float[4 * size];
+    float[] b = _bounds;
+    float[] m = _worldMatrices;
+    // 1. node world bounding balls
+    for (int i = 0; i < size; i++) {
+      Node node = _order[i];
+      if (!node.hasBoundingVolume()) {
+        b[4 * i + 3] = -1;
+        continue;
+      }
+      float x = node._boundingCenter._vector[0], y = node._boundingCenter._vector[1], z = node._boundingCenter._vector[2];
+      int o = 16 * i;
+      b[4 * i] = m[o] * x + m[o + 4] * y + m[o + 8] * z + m[o + 12];
+      b[4 * i + 1] = m[o + 1] * x + m[o + 5] * y + m[o + 9] * z + m[o + 13];
+      b[4 * i + 2] = m[o + 2] * x + m[o + 6] * y + m[o + 10] * z + m[o + 14];
+      // largest axis scaling
+      float scaling = Math.max(m[o] * m[o] + m[o + 1] * m[o + 1] + m[o + 2] * m[o + 2],
+          Math.max(m[o + 4] * m[o + 4] + m[o + 5] * m[o + 5] + m[o + 6] * m[o + 6], m[o + 8] * m[o + 8] + m[o + 9] * m[o + 9] + m[o + 10] * m[o + 10]));
+      b[4 * i + 3] = node._boundingRadius * (float) Math.sqrt(scaling);
+    }
+    // keep the node balls apart for picking
+    if (_volumes == null || _volumes.length < 4 * size)
+      _volumes = new float[4 * size];
+    System.arraycopy(b, 0, _volumes, 0, 4 * size);
+    // nodes drawing something we know nothing about are unbounded
+    for (int i = 0; i < size; i++)
+      if (b[4 * i + 3] < 0 && _order[i]._isDrawable()) {
+        int o = 16 * i;
+        b[4 * i] = m[o + 12];
+        b[4 * i + 1] = m[o + 13];
+        b[4 * i + 2] = m[o + 14];
+        b[4 * i + 3] = Float.POSITIVE_INFINITY;
+      }
+    // 2. aggregate them bottom-up: children always follow their reference
+    for (int i = size - 1; i >= 0; i--)
+      if (_parents[i] >= 0 && b[4 * i + 3] >= 0)
+        _merge(b, 4 * _parents[i], 4 * i);
+    // 3. invalidate the culling results of the moved branches
+    boolean reorder = _boundsOrder != _order || previous == null;
+    for (int i = 0; i < size; i++)
+      if (reorder || b[4 * i] != previous[4 * i] || b[4 * i + 1] != previous[4 * i + 1] || b[4 * i + 2] != previous[4 * i + 2] || b[4 * i + 3] != previous[4 * i + 3])
+        _order[i]._cullingVersion = 0;
+    _boundsOrder = _order;
+    _boundsOutdated = false;
+    _boundsVersion++;
+  }
+
+  /**
+   * Internal use. Replaces the {@code bounds} ball at {@code target} with the smallest ball
+   * enclosing both it and the one at {@code source}.
+   */
+  protected static void _merge(float[] bounds, int target, int source) {
+    float r1 = bounds[target + 3], r2 = bounds[source + 3];
+    if (r1 < 0) {
+      System.arraycopy(bounds, source, bounds, target, 4);
+      return;
+    }
+    float dx = bounds[source] - bounds[target];
+    float dy = bounds[source + 1] - bounds[target + 1];
+    float dz = bounds[source + 2] - bounds[target + 2];
+    float d = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    // one ball contains the other
+    if (d + r2 <= r1)
+      return;
+    if (d + r1 <= r2) {
+      System.arraycopy(bounds, source, bounds, target, 4);
+      return;
+    }
+    float r = (d + r1 + r2) / 2;
+    float t = (r - r1) / d;
+    bounds[target] += dx * t;
+    bounds[target + 1] += dy * t;
+    bounds[target + 2] += dz * t;
+    bounds[target + 3] = r;
+  }
+
+  /**
+   * Hierarchical culling pass: computes the {@link Node#visibility()} of all the reachable
+   * branches against the eye boundary, using their aggregated bounds (see
+   * {@link #enableBoundingVolumes(boolean)}), so that {@link #traverse()} skips the
+   * {@link Visibility#INVISIBLE} ones. The {@link Node#isCulled()} flags, which are left to
+   * the user, aren't modified.
+   * <p>
+   * Branches are visited top-down, each one only tested against the boundary planes its
+   * parent branch straddles: those of a {@link Visibility#VISIBLE} branch are hence
+   * {@link Visibility#VISIBLE} without any test, while the descendants of an
+   * {@link Visibility#INVISIBLE} one aren't visited at all (their visibility isn't
+   * updated). Branches without bounding volumes are deemed {@link Visibility#VISIBLE},
+   * while those having a node which overrides {@link Node#visit()} without defining a
+   * bounding volume are never culled.
+   * <p>
+   * Automatically called by {@link #traverse()} when the bounding volumes are enabled.
+   * The boundary equations should be up to date, see {@link #enableBoundaryEquations()}.
+   *
+   * @see Node#visibility()
+   */
+  public void updateVisibility() {
+    if (!areBoundaryEquationsEnabled())
+      System.out.println("The frustum plane equations (needed by updateVisibility) may be outdated. Please "
+          + "enable automatic updates of the equations in your PApplet.setup " + "with Scene.enableBoundaryEquations()");
+    if (_coefficients == null)
+      return;
+    _updateBounds();
+    int size = _orderSize;
+    if (_visibilityMasks == null || _visibilityMasks.length < size)
+      _visibilityMasks = new int[size];
+    int[] masks = _visibilityMasks;
+    float[] bounds = _bounds;
+    int all = (1 << (is3D() ? 6 : 4)) - 1;
+    int index = 0;
+    while (index < size) {
+      Node node = _order[index];
+      int mask = _parents[index] < 0 ? all : masks[_parents[index]];
+      Visibility visibility = Visibility.VISIBLE;
+      if (mask != 0 && bounds[4 * index + 3] >= 0) {
+        _classify(node, bounds, index, mask);
+        if (node._outside)
+          visibility = Visibility.INVISIBLE;
+        else {
+          mask &= node._straddledPlanes;
+          if (mask != 0)
+            visibility = Visibility.SEMIVISIBLE;
+        }
+      }
+      masks[index] = mask;
+      node._visibility = visibility;
+      index += visibility == Visibility.INVISIBLE ? _sizes[index] : 1;
+    }
+  }
+
+  /**
+   * Internal use. Classifies the (non empty) {@code bounds} ball of the {@code node} branch,
+   * found at {@code index}, against the eye boundary planes in {@code mask} (one bit per
+   * plane), setting {@code node._outside} if it lies completely outside any of them, and
+   * {@code node._straddledPlanes} otherwise. The planes not in {@code mask} aren't tested,
+   * since the parent branch (which bounds enclose those of the node) lies completely inside
+   * them.
+   * <p>
+   * Classification is temporally coherent: the result is kept until either the boundary
+   * equations are recomputed (i.e., the eye is modified) or the branch bounds change.
+   * Moreover, the plane which last rejected the branch is tested first, since it is very
+   * likely to reject it again.
+   */
+  protected void _classify(Node node, float[] bounds, int index, int mask) {
+    if (node._cullingVersion == _boundaryVersion && node._cullingMask == mask)
+      return;
+    float x = bounds[4 * index], y = bounds[4 * index + 1], z = bounds[4 * index + 2], radius = bounds[4 * index + 3];
+    int planes = is3D() ? 6 : 4;
+    int last = node._cullingPlane;
+    boolean outside = last >= 0 && last < planes && (mask & (1 << last)) != 0 && _distanceToBoundary(last, x, y, z) > radius;
+    int straddled = 0;
+    if (!outside) {
+      node._cullingPlane = -1;
+      for (int i = 0; i < planes; ++i) {
+        if ((mask & (1 << i)) == 0)
+          continue;
+        float distance = _distanceToBoundary(i, x, y, z);
+        if (distance > radius) {
+          node._cullingPlane = i;
+          outside = true;
+          break;
+        }
+        if (distance > -radius)
+          straddled |= 1 << i;
+      }
+    }
+    node._outside = outside;
+    node._straddledPlanes = straddled;
+    node._cullingVersion = _boundaryVersion;
+    node._cullingMask = mask;
+  }
+
+  /**
+   * Internal use. Allocation-free version of {@link #distanceToBoundary(int, Vector)}.
+   */
+  protected float _distanceToBoundary(int index, float x, float y, float z) {
+    if (is3D())
+      return _coefficients[index][0] * x + _coefficients[index][1] * y + _coefficients[index][2] * z - _coefficients[index][3];
+    return (_coefficients[index][0] * x + _coefficients[index][1] * y + _coefficients[index][2])
+        / (float) Math.sqrt(_coefficients[index][0] * _coefficients[index][0] + _coefficients[index][1] * _coefficients[index][1]);
+  }
+
   /**
    * Returns the pixel to graph (units) ratio at {@code position}.
    * <p>
@@ -1853,64 +2966,332 @@ public class Graph {
    * @see #unprojectedCoordinatesOf(Vector, Frame)
    */
   public Vector projectedCoordinatesOf(Vector point, Frame frame) {
-    float xyz[] = new float[3];
+    return projectedCoordinatesOf(point, frame, null);
+  }
 
-    if (frame != null) {
-      Vector tmp = frame.inverseCoordinatesOf(point);
-      _project(tmp._vector[0], tmp._vector[1], tmp._vector[2], xyz);
-    } else
-      _project(point._vector[0], point._vector[1], point._vector[2], xyz);
+  /**
+   * Same as {@link #projectedCoordinatesOf(Vector, Frame)}, but storing the result in
+   * {@code target} (if null, a new vector will be created), which may be {@code point}
+   * itself. Doesn't allocate anything when {@code target} is non-null.
+   */
+  public Vector projectedCoordinatesOf(Vector point, Frame frame, Vector target) {
+    if (target == null)
+      target = new Vector();
+    if (frame != null)
+      frame.inverseCoordinatesOf(point, target);
+    else
+      target.set(point);
+    if (!_project(target._vector[0], target._vector[1], target._vector[2], target._vector))
+      target.set(0, 0, 0);
+    return target;
+  }
 
-    return new Vector(xyz[0], xyz[1], xyz[2]);
+  /**
+   * Same as {@code return projectedCoordinatesOf(points, null, target)}.
+   *
+   * @see #projectedCoordinatesOf(float[], Frame, float[])
+   */
+  public float[] projectedCoordinatesOf(float[] points, float[] target) {
+    return projectedCoordinatesOf(points, null, target);
   }
 
-  // cached version
-  protected boolean _project(float objx, float objy, float objz, float[] windowCoordinate) {
-    Matrix projectionViewMatrix = matrixHandler().cacheProjectionView();
-
-    float in[] = new float[4];
-    float out[] = new float[4];
-
-    in[0] = objx;
-    in[1] = objy;
-    in[2] = objz;
-    in[3] = 1.0f;
-
-    out[0] = projectionViewMatrix._matrix[0] * in[0] + projectionViewMatrix._matrix[4] * in[1] + projectionViewMatrix._matrix[8] * in[2]
-        + projectionViewMatrix._matrix[12] * in[3];
-    out[1] = projectionViewMatrix._matrix[1] * in[0] + projectionViewMatrix._matrix[5] * in[1] + projectionViewMatrix._matrix[9] * in[2]
-        + projectionViewMatrix._matrix[13] * in[3];
-    out[2] = projectionViewMatrix._matrix[2] * in[0] + projectionViewMatrix._matrix[6] * in[1] + projectionViewMatrix._matrix[10] * in[2]
-        + projectionViewMatrix._matrix[14] * in[3];
-    out[3] = projectionViewMatrix._matrix[3] * in[0] + projectionViewMatrix._matrix[7] * in[1] + projectionViewMatrix._matrix[11] * in[2]
-        + projectionViewMatrix._matrix[15] * in[3];
-
-    if (out[3] == 0.0)
-      return false;
+  /**
+   * Batch version of {@link #projectedCoordinatesOf(Vector, Frame)}. Returns the screen
+   * projected coordinates of the {@code points} packed (xyz interleaved) in the array and
+   * defined in the {@code frame} coordinate system (or in the world coordinate system when
+   * {@code frame} is {@code null}).
+   * <p>
+   * The projection times view matrix and the {@code frame} world matrix are composed only
+   * once for the whole array. The result is written into {@code target} (if null, a new
+   * array will be created), which may be {@code points} itself. Points which can't be
+   * projected are set to {@code (0,0,0)}.
+   *
+   * @see #projectedCoordinatesOf(FloatBuffer, Frame, FloatBuffer)
+   */
+  public float[] projectedCoordinatesOf(float[] points, Frame frame, float[] target) {
+    if (points.length % 3 != 0)
+      throw new RuntimeException("Packed xyz arrays length should be a multiple of 3");
+    if (target == null)
+      target = new float[points.length];
+    else if (target.length < points.length)
+      throw new RuntimeException("Target array is too small: " + target.length + " < " + points.length);
+    float[] m = _projectionView(frame)._matrix;
+    for (int i = 0; i < points.length; i += 3) {
+      float x = points[i];
+      float y = points[i + 1];
+      float z = points[i + 2];
+      float w = m[3] * x + m[7] * y + m[11] * z + m[15];
+      if (w == 0) {
+        target[i] = target[i + 1] = target[i + 2] = 0;
+        continue;
+      }
+      target[i] = ((m[0] * x + m[4] * y + m[8] * z + m[12]) / w * 0.5f + 0.5f) * width();
+      target[i + 1] = ((m[1] * x + m[5] * y + m[9] * z + m[13]) / w * 0.5f + 0.5f) * -height() + height();
+      target[i + 2] = (m[2] * x + m[6] * y + m[10] * z + m[14]) / w * 0.5f + 0.5f;
+    }
+    return target;
+  }
 
-    int[] viewport = new int[4];
-    viewport[0] = 0;
-    viewport[1] = height();
-    viewport[2] = width();
-    viewport[3] = -height();
+  /**
+   * Same as {@link #projectedCoordinatesOf(float[], Frame, float[])}, but using buffers. The
+   * {@code points} are read from the buffer {@code position()} to its {@code limit()}, and
+   * the results are written at the same relative offsets from the {@code target} buffer
+   * {@code position()}. The position of neither buffer is modified.
+   */
+  public FloatBuffer projectedCoordinatesOf(FloatBuffer points, Frame frame, FloatBuffer target) {
+    int length = points.remaining();
+    if (length % 3 != 0)
+      throw new RuntimeException("Packed xyz buffers length should be a multiple of 3");
+    if (target == null)
+      target = FloatBuffer.allocate(length);
+    else if (target.remaining() < length)
+      throw new RuntimeException("Target buffer is too small: " + target.remaining() + " < " + length);
+    float[] m = _projectionView(frame)._matrix;
+    int from = points.position();
+    int to = target.position();
+    for (int i = 0; i < length; i += 3) {
+      float x = points.get(from + i);
+      float y = points.get(from + i + 1);
+      float z = points.get(from + i + 2);
+      float w = m[3] * x + m[7] * y + m[11] * z + m[15];
+      if (w == 0) {
+        target.put(to + i, 0).put(to + i + 1, 0).put(to + i + 2, 0);
+        continue;
+      }
+      target.put(to + i, ((m[0] * x + m[4] * y + m[8] * z + m[12]) / w * 0.5f + 0.5f) * width());
+      target.put(to + i + 1, ((m[1] * x + m[5] * y + m[9] * z + m[13]) / w * 0.5f + 0.5f) * -height() + height());
+      target.put(to + i + 2, (m[2] * x + m[6] * y + m[10] * z + m[14]) / w * 0.5f + 0.5f);
+    }
+    return target;
+  }
+
+  /**
+   * Internal use. Returns the projection times view matrix, composed with the {@code frame}
+   * world matrix when {@code frame} is non-null.
+   */
+  protected Matrix _projectionView(Frame frame) {
+    Matrix projectionView = matrixHandler().cacheProjectionView();
+    return frame == null ? projectionView : Matrix.multiply(projectionView, frame.worldMatrix());
+  }
+
+  /**
+   * Returns the screen projected positions of all the {@link #nodes()}, packed as
+   * {@code (x0, y0, z0, x1, y1, z1, ...)} in traversal order, i.e., the projected
+   * {@code reachableNodes().get(i).position()} is found at {@code [3*i, 3*i+2]}.
+   * <p>
+   * The positions are computed in a single pass (see {@link #updateWorldMatrices()} and
+   * {@link #projectedCoordinatesOf(float[], float[])}), and only recomputed after the eye,
+   * the graph dimensions or some node is modified. This is what makes
+   * {@link Node#track(float, float)} a mere lookup.
+   * <p>
+   * The array is owned by the graph: don't modify it and don't keep a reference to it
+   * since it may be reallocated as the hierarchy changes.
+   *
+   * @see #projectedCoordinatesOf(Vector)
+   */
+  public float[] projectedPositions() {
+    _updateOrder();
+    float[] projectionView = matrixHandler().cacheProjectionView()._matrix;
+    if (!_screenOutdated && _screenOrder == _order && _screenWidth == width() && _screenHeight == height()
+        && Arrays.equals(_screenProjectionView, projectionView))
+      return _screen;
+    updateWorldMatrices();
+    int size = _orderSize;
+    if (_screen == null || _screen.length != 3 * size)
+      _screen = new float[3 * size];
+    for (int i = 0; i < size; i++) {
+      _screen[3 * i] = _worldMatrices[16 * i + 12];
+      _screen[3 * i + 1] = _worldMatrices[16 * i + 13];
+      _screen[3 * i + 2] = _worldMatrices[16 * i + 14];
+    }
+    projectedCoordinatesOf(_screen, _screen);
+    System.arraycopy(projectionView, 0, _screenProjectionView, 0, 16);
+    _screenWidth = width();
+    _screenHeight = height();
+    _screenOrder = _order;
+    _screenOutdated = false;
+    _screenVersion++;
+    return _screen;
+  }
+
+  // tracking grid
+
+  /**
+   * Disables the tracking grid.
+   *
+   * @see #enableTrackingGrid()
+   * @see #isTrackingGridEnabled()
+   */
+  public void disableTrackingGrid() {
+    enableTrackingGrid(false);
+  }
+
+  /**
+   * Enables the tracking grid.
+   *
+   * @see #disableTrackingGrid()
+   * @see #isTrackingGridEnabled()
+   * @see #trackingCandidates(float, float)
+   */
+  public void enableTrackingGrid() {
+    enableTrackingGrid(true);
+  }
+
+  /**
+   * Enables or disables the tracking grid according to {@code flag}.
+   * <p>
+   * When enabled, agents bound to this graph (such as the mouse) only query the
+   * {@link #trackingCandidates(float, float)} during picking instead of all of their grabbers,
+   * making picking independent of the number of nodes. Note that the grid assumes the
+   * {@link Node#track(float, float)} default squared-area condition for nodes having
+   * {@link Node.Precision#FIXED} or {@link Node.Precision#ADAPTIVE} precision. Don't enable it
+   * if your nodes override that condition.
+   *
+   * @see #isTrackingGridEnabled()
+   * @see #TRACKING_GRID_CELL
+   */
+  public void enableTrackingGrid(boolean flag) {
+    _trackingGrid = flag;
+  }
 
-    out[0] /= out[3];
-    out[1] /= out[3];
-    out[2] /= out[3];
+  /**
+   * Returns {@code true} if the tracking grid is enabled and {@code false} otherwise.
+   *
+   * @see #enableTrackingGrid(boolean)
+   */
+  public boolean isTrackingGridEnabled() {
+    return _trackingGrid;
+  }
 
-    // Map x, y and z to range 0-1
-    out[0] = out[0] * 0.5f + 0.5f;
-    out[1] = out[1] * 0.5f + 0.5f;
-    out[2] = out[2] * 0.5f + 0.5f;
+  /**
+   * Returns the reachable nodes that may {@link Node#track(float, float)} the screen
+   * {@code (x, y)} point, in traversal order: those having {@link Node.Precision#FIXED} or
+   * {@link Node.Precision#ADAPTIVE} precision and whose squared picking area
+   * (see {@link Node#precisionThreshold()}) contains the point, followed by all the
+   * {@link Node.Precision#EXACT} ones (which can only be decided by the nodes themselves).
+   * The {@link #eye()} is never returned.
+   * <p>
+   * The picking areas are bucketed into a grid of {@link #TRACKING_GRID_CELL} sized screen
+   * cells, which is lazily rebuilt from the {@link #projectedPositions()} only after they are
+   * recomputed, so that only the areas overlapping the cell under {@code (x, y)} are tested.
+   * <p>
+   * The returned list is owned by the graph and reused by subsequent calls.
+   *
+   * @see #enableTrackingGrid(boolean)
+   */
+  public List<Node> trackingCandidates(float x, float y) {
+    _updateTrackingGrid();
+    _candidates.clear();
+    int column = (int) Math.floor(x / TRACKING_GRID_CELL);
+    int row = (int) Math.floor(y / TRACKING_GRID_CELL);
+    if (column >= 0 && column < _gridColumns && row >= 0 && row < _gridRows) {
+      int cell = row * _gridColumns + column;
+      for (int i = _cellStarts[cell]; i < _cellStarts[cell + 1]; i++)
+        _addCandidate(_cellItems[i], x, y);
+    } else
+      // off-screen points aren't bucketed
+      for (int i = 0; i < _gridSize; i++)
+        _addCandidate(i, x, y);
+    for (int i = 0; i < _exactCount; i++)
+      _candidates.add(_order[_exactItems[i]]);
+    return _candidates;
+  }
 
-    // Map x,y to viewport
-    out[0] = out[0] * viewport[2] + viewport[0];
-    out[1] = out[1] * viewport[3] + viewport[1];
+  /**
+   * Internal use. Adds the node found at the {@code index} traversal position to the
+   * tracking candidates if its picking area contains {@code (x, y)}.
+   */
+  protected void _addCandidate(int index, float x, float y) {
+    float half = _halfThresholds[index];
+    if (half > 0 && Math.abs(x - _screen[3 * index]) < half && Math.abs(y - _screen[3 * index + 1]) < half)
+      _candidates.add(_order[index]);
+  }
 
-    windowCoordinate[0] = out[0];
-    windowCoordinate[1] = out[1];
-    windowCoordinate[2] = out[2];
+  /**
+   * Internal use. Rebuilds the tracking grid (in compressed rows form: the traversal indices
+   * of the nodes overlapping cell {@code c} are found at
+   * {@code _cellItems[_cellStarts[c] .. _cellStarts[c+1]-1]}) if the
+   * {@link #projectedPositions()} were recomputed since it was last built.
+   */
+  protected void _updateTrackingGrid() {
+    float[] positions = projectedPositions();
+    if (_gridVersion == _screenVersion)
+      return;
+    int size = _orderSize;
+    _gridColumns = Math.max(1, (width() + TRACKING_GRID_CELL - 1) / TRACKING_GRID_CELL);
+    _gridRows = Math.max(1, (height() + TRACKING_GRID_CELL - 1) / TRACKING_GRID_CELL);
+    int cells = _gridColumns * _gridRows;
+    if (_halfThresholds == null || _halfThresholds.length < size) {
+      _halfThresholds = new float[size];
+      _exactItems = new int[size];
+      _cellRanges = new int[4 * size];
+    }
+    if (_cellStarts == null || _cellStarts.length < cells + 1)
+      _cellStarts = new int[cells + 1];
+    Arrays.fill(_cellStarts, 0, cells + 1, 0);
+    _exactCount = 0;
+    // 1. cell ranges and counts
+    int items = 0;
+    for (int i = 0; i < size; i++) {
+      Node node = _order[i];
+      _halfThresholds[i] = 0;
+      _cellRanges[4 * i] = 0;
+      _cellRanges[4 * i + 1] = -1;
+      if (node.isEye())
+        continue;
+      if (node.precision() == Node.Precision.EXACT) {
+        _exactItems[_exactCount++] = i;
+        continue;
+      }
+      float half = node.precisionThreshold() / 2;
+      float projX = positions[3 * i], projY = positions[3 * i + 1];
+      _halfThresholds[i] = half;
+      // areas lying completely off-screen (or NaN) aren't bucketed
+      if (!(half > 0 && projX + half > 0 && projY + half > 0 && projX - half < width() && projY - half < height()))
+        continue;
+      int column1 = Math.max(0, (int) Math.floor((projX - half) / TRACKING_GRID_CELL));
+      int column2 = Math.min(_gridColumns - 1, (int) Math.floor((projX + half) / TRACKING_GRID_CELL));
+      int row1 = Math.max(0, (int) Math.floor((projY - half) / TRACKING_GRID_CELL));
+      int row2 = Math.min(_gridRows - 1, (int) Math.floor((projY + half) / TRACKING_GRID_CELL));
+      _cellRanges[4 * i] = column1;
+      _cellRanges[4 * i + 1] = column2;
+      _cellRanges[4 * i + 2] = row1;
+      _cellRanges[4 * i + 3] = row2;
+      for (int row = row1; row <= row2; row++)
+        for (int column = column1; column <= column2; column++)
+          _cellStarts[row * _gridColumns + column + 1]++;
+      items += (column2 - column1 + 1) * (row2 - row1 + 1);
+    }
+    // 2. prefix sums
+    for (int cell = 0; cell < cells; cell++)
+      _cellStarts[cell + 1] += _cellStarts[cell];
+    // 3. fill, keeping the traversal order within each cell
+    if (_cellItems == null || _cellItems.length < items)
+      _cellItems = new int[items];
+    if (_cellFill == null || _cellFill.length < cells)
+      _cellFill = new int[cells];
+    System.arraycopy(_cellStarts, 0, _cellFill, 0, cells);
+    for (int i = 0; i < size; i++)
+      for (int row = _cellRanges[4 * i + 2]; row <= _cellRanges[4 * i + 3]; row++)
+        for (int column = _cellRanges[4 * i]; column <= _cellRanges[4 * i + 1]; column++)
+          _cellItems[_cellFill[row * _gridColumns + column]++] = i;
+    _gridSize = size;
+    _gridVersion = _screenVersion;
+  }
 
+  // cached version
+  protected boolean _project(float objx, float objy, float objz, float[] windowCoordinate) {
+    float[] m = matrixHandler().cacheProjectionView()._matrix;
+    float w = m[3] * objx + m[7] * objy + m[11] * objz + m[15];
+    if (w == 0.0)
+      return false;
+    float x = m[0] * objx + m[4] * objy + m[8] * objz + m[12];
+    float y = m[1] * objx + m[5] * objy + m[9] * objz + m[13];
+    float z = m[2] * objx + m[6] * objy + m[10] * objz + m[14];
+    // Map x, y and z to range 0-1, and then x,y to the viewport
+    windowCoordinate[0] = (x / w * 0.5f + 0.5f) * width();
+    windowCoordinate[1] = (y / w * 0.5f + 0.5f) * -height() + height();
+    windowCoordinate[2] = z / w * 0.5f + 0.5f;
     return true;
   }
 
@@ -1944,24 +3325,31 @@ public class Graph {
    * {@link #width()} and {@link #height()}). You can hence define a virtual eye and use
    * this method to compute un-projections out of a classical rendering context.
    * <p>
-   * This method is not computationally optimized by default. If you call it several times with no
-   * change in the matrices, you should buffer the inverse of the projection times view matrix
-   * to speed-up the queries. See {@link #cacheProjectionViewInverse(boolean)}.
+   * The inverse of the projection times view matrix is automatically maintained, i.e., it
+   * is only recomputed after the eye changes. See also
+   * {@link #cacheProjectionViewInverse(boolean)}.
    *
    * @see #projectedCoordinatesOf(Vector, Frame)
    * @see #setWidth(int)
    * @see #setHeight(int)
    */
   public Vector unprojectedCoordinatesOf(Vector pixel, Frame frame) {
-    float xyz[] = new float[3];
-    // _unproject(src.vec[0], src.vec[1], src.vec[2], this.getViewMatrix(true),
-    // this.getProjectionMatrix(true),
-    // getViewport(), xyz);
-    _unproject(pixel._vector[0], pixel._vector[1], pixel._vector[2], xyz);
+    return unprojectedCoordinatesOf(pixel, frame, null);
+  }
+
+  /**
+   * Same as {@link #unprojectedCoordinatesOf(Vector, Frame)}, but storing the result in
+   * {@code target} (if null, a new vector will be created), which may be {@code pixel}
+   * itself. Doesn't allocate anything when {@code target} is non-null.
+   */
+  public Vector unprojectedCoordinatesOf(Vector pixel, Frame frame, Vector target) {
+    if (target == null)
+      target = new Vector();
+    if (!_unproject(pixel._vector[0], pixel._vector[1], pixel._vector[2], target._vector))
+      target.set(0, 0, 0);
     if (frame != null)
-      return frame.coordinatesOf(new Vector(xyz[0], xyz[1], xyz[2]));
-    else
-      return new Vector(xyz[0], xyz[1], xyz[2]);
+      frame.coordinatesOf(target, target);
+    return target;
   }
 
   /**
@@ -1973,52 +3361,27 @@ public class Graph {
    * @param objCoordinate Return the computed object coordinates.
    */
   protected boolean _unproject(float winx, float winy, float winz, float[] objCoordinate) {
-    Matrix projectionViewInverseMatrix;
-    if (matrixHandler().isProjectionViewInverseCached())
-      projectionViewInverseMatrix = matrixHandler().cacheProjectionViewInverse();
-    else {
-      projectionViewInverseMatrix = Matrix.multiply(matrixHandler().cacheProjection(), matrixHandler().cacheView());
-      projectionViewInverseMatrix.invert();
-    }
-
-    int[] viewport = new int[4];
-    viewport[0] = 0;
-    viewport[1] = height();
-    viewport[2] = width();
-    viewport[3] = -height();
-
-    float in[] = new float[4];
-    float out[] = new float[4];
-
-    in[0] = winx;
-    in[1] = winy;
-    in[2] = winz;
-    in[3] = 1.0f;
-
-    /* Map x and y from window coordinates */
-    in[0] = (in[0] - viewport[0]) / viewport[2];
-    in[1] = (in[1] - viewport[1]) / viewport[3];
-
-    /* Map to range -1 to 1 */
-    in[0] = in[0] * 2 - 1;
-    in[1] = in[1] * 2 - 1;
-    in[2] = in[2] * 2 - 1;
-
-    projectionViewInverseMatrix.multiply(in, out);
-    if (out[3] == 0)
+    Matrix projectionViewInverseMatrix = matrixHandler()._inverseProjectionView();
+    if (projectionViewInverseMatrix == null)
       return false;
+    float[] m = projectionViewInverseMatrix._matrix;
 
-    out[0] /= out[3];
-    out[1] /= out[3];
-    out[2] /= out[3];
+    // Map x and y from window coordinates, and then to range -1 to 1
+    float x = winx / width() * 2 - 1;
+    float y = (winy - height()) / -height() * 2 - 1;
+    float z = winz * 2 - 1;
 
-    objCoordinate[0] = out[0];
-    objCoordinate[1] = out[1];
-    objCoordinate[2] = out[2];
+    float w = m[3] * x + m[7] * y + m[11] * z + m[15];
+    if (w == 0)
+      return false;
 
+    objCoordinate[0] = (m[0] * x + m[4] * y + m[8] * z + m[12]) / w;
+    objCoordinate[1] = (m[1] * x + m[5] * y + m[9] * z + m[13]) / w;
+    objCoordinate[2] = (m[2] * x + m[6] * y + m[10] * z + m[14]) / w;
     return true;
   }
 
+
   /**
    * Returns the radius of the graph observed by the eye in world units.
    * <p>
@@ -2484,6 +3847,314 @@ public class Graph {
     }
   }
 
+  // ray picking
+
+  /**
+   * Same as {@code return pick(pixel, null)}.
+   *
+   * @see #pick(Point, float[])
+   */
+  public Node pick(Point pixel) {
+    return pick(pixel, null);
+  }
+
+  /**
+   * Casts the {@link #convertClickToLine(Point, Vector, Vector)} half-line through
+   * {@code pixel} and returns the nearest node it hits. See
+   * {@link #pick(Vector, Vector, float[])}.
+   */
+  public Node pick(Point pixel, float[] distance) {
+    Vector origin = new Vector();
+    Vector direction = new Vector();
+    convertClickToLine(pixel, origin, direction);
+    return pick(origin, direction, distance);
+  }
+
+  /**
+   * Returns the reachable node (other than the {@link #eye()}) which bounding volume (see
+   * {@link Node#setBoundingBall(Vector, float)} and {@link Node#setBoundingBox(Vector, Vector)})
+   * is first hit by the half-line defined by {@code origin} and {@code direction} (both
+   * defined in the world coordinate system), or {@code null} if none is. Nodes without
+   * bounding volume are never picked. If {@code distance} is non-null, {@code distance[0]}
+   * is set to the hit distance (in {@code direction} units, i.e., in world units when it is
+   * normalized) along the half-line, or to {@code Float.POSITIVE_INFINITY} on a miss.
+   * <p>
+   * The half-line is intersected against a bounding volume hierarchy of the node world
+   * bounding balls, which is lazily built after the hierarchy changes and just refitted when
+   * nodes are merely moved, so that only the nodes near to the half-line are exactly tested.
+   * Unlike {@link Node.Precision#EXACT} picking, it doesn't require rendering the scene into
+   * a back buffer and hence also works with headless graphs.
+   *
+   * @see #convertClickToLine(Point, Vector, Vector)
+   */
+  public Node pick(Vector origin, Vector direction, float[] distance) {
+    _updateBVH();
+    float ox = origin._vector[0], oy = origin._vector[1], oz = origin._vector[2];
+    float dx = direction._vector[0], dy = direction._vector[1], dz = direction._vector[2];
+    float nearest = Float.POSITIVE_INFINITY;
+    int picked = -1;
+    if (_bvhSize > 0) {
+      int top = 0;
+      _bvhNodeStack[top] = 0;
+      _bvhEntryStack[top++] = _rayBox(0, ox, oy, oz, dx, dy, dz);
+      while (top > 0) {
+        int node = _bvhNodeStack[--top];
+        if (_bvhEntryStack[top] >= nearest)
+          continue;
+        if (_bvhCounts[node] > 0) {
+          for (int i = _bvhFirsts[node]; i < _bvhFirsts[node] + _bvhCounts[node]; i++) {
+            int index = _bvhItems[i];
+            float t = _rayVolume(index, ox, oy, oz, dx, dy, dz);
+            // ties are broken by traversal order
+            if (t < nearest || (t == nearest && index < picked)) {
+              nearest = t;
+              picked = index;
+            }
+          }
+          continue;
+        }
+        // visit the nearest child first
+        int left = node + 1, right = _bvhFirsts[node];
+        float leftEntry = _rayBox(left, ox, oy, oz, dx, dy, dz);
+        float rightEntry = _rayBox(right, ox, oy, oz, dx, dy, dz);
+        if (leftEntry < rightEntry) {
+          _bvhNodeStack[top] = right;
+          _bvhEntryStack[top++] = rightEntry;
+          _bvhNodeStack[top] = left;
+          _bvhEntryStack[top++] = leftEntry;
+        } else {
+          _bvhNodeStack[top] = left;
+          _bvhEntryStack[top++] = leftEntry;
+          _bvhNodeStack[top] = right;
+          _bvhEntryStack[top++] = rightEntry;
+        }
+      }
+    }
+    if (distance != null)
+      distance[0] = nearest;
+    return picked == -1 ? null : _order[picked];
+  }
+
+  /**
+   * Internal use. Returns the distance along the half-line at which it enters the box of the
+   * {@code node} of the bounding volume hierarchy ({@code 0} if it starts within it), or
+   * {@code Float.POSITIVE_INFINITY} if it misses it.
+   */
+  protected float _rayBox(int node, float ox, float oy, float oz, float dx, float dy, float dz) {
+    return _raySlabs(_bvhBoxes, 6 * node, ox, oy, oz, dx, dy, dz, false);
+  }
+
+  /**
+   * Internal use. Slabs test of the half-line against the axis aligned box which min and
+   * max corners are found at {@code box[offset .. offset+5]}. Returns the distance along the
+   * half-line at which it enters the box (or leaves it, when {@code exit} is {@code true} and
+   * the half-line starts within it), or {@code Float.POSITIVE_INFINITY} if it misses it.
+   */
+  protected static float _raySlabs(float[] box, int offset, float ox, float oy, float oz, float dx, float dy, float dz, boolean exit) {
+    float near = 0, far = Float.POSITIVE_INFINITY;
+    boolean inside = true;
+    for (int axis = 0; axis < 3; axis++) {
+      float min = box[offset + axis], max = box[offset + 3 + axis];
+      float o = axis == 0 ? ox : axis == 1 ? oy : oz;
+      float d = axis == 0 ? dx : axis == 1 ? dy : dz;
+      inside = inside && o > min && o < max;
+      if (d == 0) {
+        if (o < min || o > max)
+          return Float.POSITIVE_INFINITY;
+        continue;
+      }
+      float t1 = (min - o) / d, t2 = (max - o) / d;
+      near = Math.max(near, Math.min(t1, t2));
+      far = Math.min(far, Math.max(t1, t2));
+      if (near > far)
+        return Float.POSITIVE_INFINITY;
+    }
+    // starting within the box: measure the hit to its boundary from the inside
+    return exit && inside ? far : near;
+  }
+
+  /**
+   * Internal use. Returns the distance along the half-line at which it hits the bounding
+   * volume of the node found at the {@code index} traversal position, or
+   * {@code Float.POSITIVE_INFINITY} if it misses it. The half-line is first brought into the
+   * node coordinate system, so that the distances are preserved.
+   */
+  protected float _rayVolume(int index, float ox, float oy, float oz, float dx, float dy, float dz) {
+    Node node = _order[index];
+    if (node.isEye() || !node.hasBoundingVolume())
+      return Float.POSITIVE_INFINITY;
+    // world matrices are similarities, hence their inverse is their transpose over the squared scaling
+    float[] m = _worldMatrices;
+    int o = 16 * index;
+    float scaling = m[o] * m[o] + m[o + 1] * m[o + 1] + m[o + 2] * m[o + 2];
+    if (scaling == 0)
+      return Float.POSITIVE_INFINITY;
+    float px = ox - m[o + 12], py = oy - m[o + 13], pz = oz - m[o + 14];
+    float lox = (m[o] * px + m[o + 1] * py + m[o + 2] * pz) / scaling;
+    float loy = (m[o + 4] * px + m[o + 5] * py + m[o + 6] * pz) / scaling;
+    float loz = (m[o + 8] * px + m[o + 9] * py + m[o + 10] * pz) / scaling;
+    float ldx = (m[o] * dx + m[o + 1] * dy + m[o + 2] * dz) / scaling;
+    float ldy = (m[o + 4] * dx + m[o + 5] * dy + m[o + 6] * dz) / scaling;
+    float ldz = (m[o + 8] * dx + m[o + 9] * dy + m[o + 10] * dz) / scaling;
+    if (node._boundingCorner1 != null) {
+      float[] box = _rayScratch;
+      System.arraycopy(node._boundingCorner1._vector, 0, box, 0, 3);
+      System.arraycopy(node._boundingCorner2._vector, 0, box, 3, 3);
+      return _raySlabs(box, 0, lox, loy, loz, ldx, ldy, ldz, true);
+    }
+    // ball: nearest non-negative root of |lo - c + t * ld|^2 = r^2
+    float cx = lox - node._boundingCenter._vector[0];
+    float cy = loy - node._boundingCenter._vector[1];
+    float cz = loz - node._boundingCenter._vector[2];
+    float a = ldx * ldx + ldy * ldy + ldz * ldz;
+    float b = cx * ldx + cy * ldy + cz * ldz;
+    float c = cx * cx + cy * cy + cz * cz - node._boundingRadius * node._boundingRadius;
+    float discriminant = b * b - a * c;
+    if (a == 0 || discriminant < 0)
+      return Float.POSITIVE_INFINITY;
+    float root = (float) Math.sqrt(discriminant);
+    float t = (-b - root) / a;
+    if (t < 0)
+      t = (-b + root) / a;
+    return t < 0 ? Float.POSITIVE_INFINITY : t;
+  }
+
+  /**
+   * Internal use. Updates the bounding volume hierarchy used by
+   * {@link #pick(Vector, Vector, float[])} from the node world bounding balls (see
+   * {@link #_updateBounds()}). The hierarchy is rebuilt when the set of nodes having a
+   * bounding volume changes, and it's just refitted (bottom-up) otherwise.
+   */
+  protected void _updateBVH() {
+    _updateBounds();
+    if (_bvhVersion == _boundsVersion)
+      return;
+    float[] volumes = _volumes;
+    int size = _orderSize;
+    int count = 0;
+    for (int i = 0; i < size; i++)
+      if (volumes[4 * i + 3] >= 0)
+        count++;
+    boolean rebuild = _bvhOrder != _order || count != _bvhItemCount;
+    for (int i = 0; i < _bvhItemCount && !rebuild; i++)
+      rebuild = volumes[4 * _bvhItems[i] + 3] < 0;
+    if (rebuild) {
+      if (_bvhItems == null || _bvhItems.length < count) {
+        _bvhItems = new int[count];
+        _bvhBoxes = new float[6 * 2 * count];
+        _bvhFirsts = new int[2 * count];
+        _bvhCounts = new int[2 * count];
+      }
+      _bvhItemCount = 0;
+      for (int i = 0; i < size; i++)
+        if (volumes[4 * i + 3] >= 0)
+          _bvhItems[_bvhItemCount++] = i;
+      _bvhSize = 0;
+      _bvhDepth = 0;
+      if (count > 0)
+        _buildBVH(0, count, 1);
+      if (_bvhNodeStack == null || _bvhNodeStack.length < _bvhDepth + 1) {
+        _bvhNodeStack = new int[_bvhDepth + 1];
+        _bvhEntryStack = new float[_bvhDepth + 1];
+      }
+      _bvhOrder = _order;
+    } else
+      // children are always stored after their parent
+      for (int node = _bvhSize - 1; node >= 0; node--)
+        if (_bvhCounts[node] > 0)
+          _fitBVH(node, _bvhFirsts[node], _bvhFirsts[node] + _bvhCounts[node]);
+        else {
+          int left = 6 * (node + 1), right = 6 * _bvhFirsts[node];
+          for (int axis = 0; axis < 3; axis++) {
+            _bvhBoxes[6 * node + axis] = Math.min(_bvhBoxes[left + axis], _bvhBoxes[right + axis]);
+            _bvhBoxes[6 * node + 3 + axis] = Math.max(_bvhBoxes[left + 3 + axis], _bvhBoxes[right + 3 + axis]);
+          }
+        }
+    _bvhVersion = _boundsVersion;
+  }
+
+  /**
+   * Internal use. Recursively builds the bounding volume hierarchy node enclosing the
+   * {@code _bvhItems[start .. end-1]} balls, splitting them at the median of the longest
+   * axis. Returns the index of the built node.
+   */
+  protected int _buildBVH(int start, int end, int depth) {
+    int node = _bvhSize++;
+    _bvhDepth = Math.max(_bvhDepth, depth);
+    _fitBVH(node, start, end);
+    if (end - start <= BVH_LEAF_SIZE) {
+      _bvhFirsts[node] = start;
+      _bvhCounts[node] = end - start;
+      return node;
+    }
+    int axis = 0;
+    float extent = -1;
+    for (int i = 0; i < 3; i++)
+      if (_bvhBoxes[6 * node + 3 + i] - _bvhBoxes[6 * node + i] > extent) {
+        extent = _bvhBoxes[6 * node + 3 + i] - _bvhBoxes[6 * node + i];
+        axis = i;
+      }
+    int middle = (start + end) >>> 1;
+    _selectBVH(start, end, middle, axis);
+    _bvhCounts[node] = 0;
+    _buildBVH(start, middle, depth + 1);
+    _bvhFirsts[node] = _buildBVH(middle, end, depth + 1);
+    return node;
+  }
+
+  /**
+   * Internal use. Sets the box of the bounding volume hierarchy {@code node} to the one
+   * enclosing the {@code _bvhItems[start .. end-1]} balls.
+   */
+  protected void _fitBVH(int node, int start, int end) {
+    float[] volumes = _volumes;
+    int offset = 6 * node;
+    for (int axis = 0; axis < 3; axis++) {
+      _bvhBoxes[offset + axis] = Float.POSITIVE_INFINITY;
+      _bvhBoxes[offset + 3 + axis] = Float.NEGATIVE_INFINITY;
+    }
+    for (int i = start; i < end; i++) {
+      int ball = 4 * _bvhItems[i];
+      float radius = volumes[ball + 3];
+      for (int axis = 0; axis < 3; axis++) {
+        _bvhBoxes[offset + axis] = Math.min(_bvhBoxes[offset + axis], volumes[ball + axis] - radius);
+        _bvhBoxes[offset + 3 + axis] = Math.max(_bvhBoxes[offset + 3 + axis], volumes[ball + axis] + radius);
+      }
+    }
+  }
+
+  /**
+   * Internal use. Partially sorts {@code _bvhItems[start .. end-1]} (quickselect) so that the
+   * one at {@code k} has the k-th smallest ball center {@code axis} coordinate, those before it
+   * aren't greater and those after it aren't smaller.
+   */
+  protected void _selectBVH(int start, int end, int k, int axis) {
+    int[] items = _bvhItems;
+    float[] volumes = _volumes;
+    int low = start, high = end - 1;
+    while (low < high) {
+      float pivot = volumes[4 * items[(low + high) >>> 1] + axis];
+      int i = low, j = high;
+      while (i <= j) {
+        while (volumes[4 * items[i] + axis] < pivot)
+          i++;
+        while (volumes[4 * items[j] + axis] > pivot)
+          j--;
+        if (i <= j) {
+          int item = items[i];
+          items[i++] = items[j];
+          items[j--] = item;
+        }
+      }
+      if (k <= j)
+        high = j;
+      else if (k >= i)
+        low = i;
+      else
+        return;
+    }
+  }
+
   // Nice stuff :P
 
   /**
@@ -2635,7 +4306,7 @@ public class Graph {
   public TreeSolver registerTreeSolver(Node node) {
     for (TreeSolver solver : _solvers) {
       //If Head is Contained in any structure do nothing
-      if (!branch(solver.head(), node).isEmpty())
+      if (isAncestor(solver.head(), node))
         return null;
     }
     TreeSolver solver = new TreeSolver(node);
@@ -42,6 +42,7 @@ public class MatrixHandler {
   protected Matrix _projection, _view, _modelview;
   protected Matrix _projectionView, _projectionViewInverse;
   protected boolean _isProjectionViewInverseCached, _projectionViewHasInverse;
+  protected boolean _projectionViewInverseOutdated = true;
 
   public static int STACK_DEPTH = 32;
   public static String ERROR_PUSHMATRIX_OVERFLOW = "Too many calls to pushModelView().";
@@ -289,16 +290,35 @@ public class MatrixHandler {
    */
   protected void _cacheProjectionView(Matrix matrix) {
     _projectionView.set(matrix);
-    if (isProjectionViewInverseCached()) {
+    _projectionViewInverseOutdated = true;
+    if (isProjectionViewInverseCached())
+      _inverseProjectionView();
+  }
+
+  /**
+   * Internal use. Returns the projection * view inverse matrix, or {@code null} if the
+   * projection * view matrix isn't invertible. The inverse is lazily recomputed (in place)
+   * only after the projection * view matrix changes, regardless of
+   * {@link #isProjectionViewInverseCached()}.
+   *
+   * @see #cacheProjectionViewInverse()
+   */
+  protected Matrix _inverseProjectionView() {
+    if (_projectionViewInverseOutdated) {
       if (_projectionViewInverse == null)
         _projectionViewInverse = new Matrix();
       _projectionViewHasInverse = _projectionView.invert(_projectionViewInverse);
+      _projectionViewInverseOutdated = false;
     }
+    return _projectionViewHasInverse ? _projectionViewInverse : null;
   }
 
   /**
    * Cache projection * view inverse matrix (and also projection * view}) so that
    * {@link Graph#unprojectedCoordinatesOf(Vector)} is optimized.
+   * <p>
+   * Note that the inverse is lazily computed anyway when first needed after the
+   * projection * view matrix changes. Caching it computes it eagerly instead.
    *
    * @see #isProjectionViewInverseCached()
    * @see #cacheProjectionView()
@@ -10,18 +10,19 @@
 
 package frames.core;
 
+import frames.input.Action;
+import frames.input.ActionTable;
 import frames.input.Agent;
 import frames.input.Event;
 import frames.input.Grabber;
 import frames.input.InputHandler;
+import frames.input.Shortcut;
 import frames.input.event.*;
 import frames.primitives.*;
 import frames.primitives.constraint.WorldConstraint;
-import frames.timing.TimingHandler;
 import frames.timing.TimingTask;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -63,7 +64,8 @@ import java.util.List;
  * Implement a {@code cullingCondition} to perform hierarchical culling on the node
  * (culling of the node and its descendants by the {@link frames.core.Graph#traverse()}
  * algorithm). The {@link #isCulled()} flag is {@code false} by default, see
- * {@link #cull(boolean)}.
+ * {@link #cull(boolean)}. Branches lying outside the eye boundary may also be skipped
+ * automatically (regardless of this flag), see {@link Graph#updateVisibility()}.
  * <p>
  * A node may also be defined as the {@link Graph#eye()} (see {@link #isEye()}
  * and {@link Graph#setEye(Frame)}). Some user gestures are then interpreted in a negated way,
@@ -92,6 +94,19 @@ import java.util.List;
  * your custom node will then accordingly react to the LEFT and RIGHT mouse buttons,
  * provided it's added to the mouse-agent first (see {@link Agent#addGrabber(Grabber)}.
  * <p>
+ * Alternatively, bind the actions once with {@link #setAction(Class, Shortcut, Action)},
+ * which {@link #interact(Event)} then looks up in constant time:
+ *
+ * <pre>
+ * {@code
+ * node.setAction(MotionEvent2.class, new Shortcut(PApplet.LEFT), new Action() {
+ *   public void perform(Event event) {
+ *     node.rotate(event);
+ *   }
+ * });
+ * }
+ * </pre>
+ * <p>
  * Note that actions are bound to the node using the event {@link frames.input.Shortcut}
  * attribute which identifies it. For instance {@code Shortcut(PApplet.LEFT))} tells us
  * the {@code event} is a {@link MotionEvent2} mouse drag.
@@ -146,11 +161,34 @@ public class Node extends Frame implements Grabber {
   protected Graph _graph;
 
   protected float _threshold;
+  // track(x, y) scratch vector
+  protected Vector _tracking;
 
   protected boolean _culled;
 
+  // local bounding volume: a ball (null corners) or an axis aligned box
+  protected Vector _boundingCenter;
+  protected float _boundingRadius;
+  protected Vector _boundingCorner1, _boundingCorner2;
+  // temporally coherent culling: last result, rejecting plane, boundary version and
+  // tested planes
+  protected boolean _outside;
+  protected int _straddledPlanes;
+  protected int _cullingPlane = -1;
+  protected long _cullingVersion;
+  protected int _cullingMask;
+  // hierarchical culling pass result, see Graph.updateVisibility()
+  protected Graph.Visibility _visibility;
+
   // id
   protected int _id;
+  // picking id, lazily allocated (0 means none), see _id()
+  protected int _pickingId;
+  // index in the graph flattened pre-order
+  protected int _index;
+  // index in the reference children list (or in the graph leading nodes list).
+  // Not initialized on purpose: Frame constructor may already set it through setReference
+  protected int _slot;
 
   /**
    * Enumerates the Picking precision modes.
@@ -162,8 +200,11 @@ public class Node extends Frame implements Grabber {
   protected Precision _Precision;
 
   protected MotionEvent2 _initEvent;
+  // see setAction()
+  protected ActionTable _actions;
 
   protected List<Node> _children;
+  protected int _childHoles;
 
   /**
    * Same as {@code this(graph, null, new Vector(), new Quaternion(), 1)}.
@@ -204,9 +245,6 @@ public class Node extends Frame implements Grabber {
     super(reference, translation, rotation, scaling);
     _graph = graph;
     _id = ++graph()._nodeCount;
-    // unlikely but theoretically possible
-    if (_id == 16777216)
-      throw new RuntimeException("Maximum node instances reached. Exiting now!");
 
     if (graph().is2D()) {
       if (position().z() != 0)
@@ -253,23 +291,28 @@ public class Node extends Frame implements Grabber {
     graph().inputHandler().addGrabber(this);
     _Precision = Precision.FIXED;
     setPrecisionThreshold(20);
+    if (graph().isTransformStoreEnabled())
+      graph()._store(this);
   }
 
   protected Node(Graph graph, Node other) {
     super(other);
     this._graph = graph;
-    if (this.graph() == other.graph()) {
-      this._id = ++graph()._nodeCount;
-      // unlikely but theoretically possible
-      if (this._id == 16777216)
-        throw new RuntimeException("Maximum iFrame instances reached. Exiting now!");
-    } else {
-      this._id = other._id();
+    // ids are local to the graph, so copies into another graph get a fresh one
+    this._id = ++graph()._nodeCount;
+    if (this.graph() != other.graph())
       this.setWorldMatrix(other);
-    }
 
     this._upVector = other._upVector.get();
     this._culled = other._culled;
+    if (other.hasBoundingVolume()) {
+      this._boundingCenter = other._boundingCenter.get();
+      this._boundingRadius = other._boundingRadius;
+      if (other._boundingCorner1 != null) {
+        this._boundingCorner1 = other._boundingCorner1.get();
+        this._boundingCorner2 = other._boundingCorner2.get();
+      }
+    }
 
     this._children = new ArrayList<Node>();
     if (this.graph() == other.graph()) {
@@ -310,6 +353,9 @@ public class Node extends Frame implements Grabber {
     //
     this.setFlySpeed(other.flySpeed());
 
+    if (this.graph().isTransformStoreEnabled())
+      this.graph()._store(this);
+
     if (this.graph() == other.graph()) {
       for (Agent agent : this._graph.inputHandler().agents())
         if (agent.hasGrabber(other))
@@ -334,12 +380,30 @@ public class Node extends Frame implements Grabber {
   //_id
 
   /**
-   * Internal use. Frame graphics color to be used for picking with a color buffer.
+   * Internal use. Frame graphics (ARGB) color to be used for picking with a color buffer.
+   * <p>
+   * The color encodes the node picking id, which is lazily allocated by the graph (so that
+   * only nodes being picked in this way consume them) and released when the node is pruned
+   * (see {@link Graph#pruneBranch(Node)}). The alpha channel holds the (complemented) high
+   * byte of the id, which is {@code 255} unless the graph allows more than {@code 2^24}
+   * simultaneous picking ids.
    */
   protected int _id() {
+    if (_pickingId == 0)
+      _pickingId = graph()._allocatePickingId();
     // see here:
     // http://stackoverflow.com/questions/2262100/rgb-int-to-rgb-python
-    return (255 << 24) | ((_id & 255) << 16) | (((_id >> 8) & 255) << 8) | (_id >> 16) & 255;
+    return ((255 - (_pickingId >>> 24)) << 24) | ((_pickingId & 255) << 16) | (((_pickingId >> 8) & 255) << 8) | (_pickingId >> 16) & 255;
+  }
+
+  /**
+   * Returns the node id, a positive integer which uniquely identifies the node within its
+   * {@link #graph()}.
+   *
+   * @see Graph#enableTransformStore(boolean)
+   */
+  public int id() {
+    return _id;
   }
 
   /**
@@ -428,6 +492,8 @@ public class Node extends Frame implements Grabber {
    * Returns a list of the node children, i.e., nodes which {@link #reference()} is this.
    */
   public List<Node> children() {
+    if (_childHoles > 0)
+      _childHoles = Graph._compact(_children);
     return _children;
   }
 
@@ -436,30 +502,46 @@ public class Node extends Frame implements Grabber {
       return false;
     if (_hasChild(node))
       return false;
-    return children().add(node);
+    graph()._invalidateOrder();
+    node._slot = _children.size();
+    return _children.add(node);
   }
 
   /**
    * Removes the leading node if present. Typically used when re-parenting the node.
+   * <p>
+   * The relative order of the remaining children is kept (see
+   * {@link Graph#_removeLeadingNode(Node)}).
    */
   protected boolean _removeChild(Node node) {
-    boolean result = false;
-    Iterator<Node> it = children().iterator();
-    while (it.hasNext()) {
-      if (it.next() == node) {
-        it.remove();
-        result = true;
-        break;
-      }
-    }
-    return result;
+    if (!_hasChild(node))
+      return false;
+    _childHoles = Graph._remove(_children, node, _childHoles);
+    graph()._invalidateOrder();
+    return true;
+  }
+
+  /**
+   * Removes all the node children at once. Used by {@link Graph#pruneBranch(Node)}.
+   */
+  protected void _clearChildren() {
+    if (_children.isEmpty())
+      return;
+    for (Node child : _children)
+      if (child != null)
+        child._slot = -1;
+    _children.clear();
+    _childHoles = 0;
+    graph()._invalidateOrder();
   }
 
+  /**
+   * Returns {@code true} if {@code node} is a child of this node. Membership is checked in
+   * constant time from the node {@code _slot}, i.e., its index within the
+   * {@link #children()} list.
+   */
   protected boolean _hasChild(Node node) {
-    for (Node frame : children())
-      if (frame == node)
-        return true;
-    return false;
+    return node != null && node._slot >= 0 && node._slot < _children.size() && _children.get(node._slot) == node;
   }
 
   /**
@@ -520,6 +602,156 @@ public class Node extends Frame implements Grabber {
     return _culled;
   }
 
+  /**
+   * Returns the visibility of the node branch (i.e., the node and all its descendants),
+   * as computed by the last {@link Graph#updateVisibility()} culling pass, or {@code null}
+   * if it hasn't been computed yet.
+   * <p>
+   * The visibility of the descendants of an {@link Graph.Visibility#INVISIBLE} branch isn't
+   * updated.
+   *
+   * @see Graph#enableBoundingVolumes(boolean)
+   */
+  public Graph.Visibility visibility() {
+    return _visibility;
+  }
+
+  /**
+   * Sets the node bounding volume as the ball of {@code center} and {@code radius},
+   * both defined in the node coordinate system.
+   * <p>
+   * The bounding volume should enclose all the geometry drawn by the node in
+   * {@link #visit()} (but not the one drawn by its children). When the graph bounding
+   * volumes are enabled, whole branches which aggregated bounds lie outside the eye
+   * boundary are automatically skipped by the {@link Graph#traverse()} algorithm. It is also
+   * the volume hit by {@link Graph#pick(Vector, Vector, float[])}.
+   *
+   * @see #setBoundingBox(Vector, Vector)
+   * @see #resetBoundingVolume()
+   * @see Graph#enableBoundingVolumes(boolean)
+   */
+  public void setBoundingBall(Vector center, float radius) {
+    _boundingCenter = center.get();
+    _boundingRadius = Math.abs(radius);
+    _boundingCorner1 = null;
+    _boundingCorner2 = null;
+    _cachesModified();
+  }
+
+  /**
+   * Sets the node bounding volume as the axis aligned box defined by {@code corner1} and
+   * {@code corner2}, both defined in the node coordinate system.
+   * <p>
+   * Note that the box is enclosed by a ball (see {@link #boundingCenter()} and
+   * {@link #boundingRadius()}) when aggregating the branch bounds.
+   *
+   * @see #setBoundingBall(Vector, float)
+   * @see #resetBoundingVolume()
+   * @see Graph#enableBoundingVolumes(boolean)
+   */
+  public void setBoundingBox(Vector corner1, Vector corner2) {
+    _boundingCorner1 = new Vector(Math.min(corner1.x(), corner2.x()), Math.min(corner1.y(), corner2.y()), Math.min(corner1.z(), corner2.z()));
+    _boundingCorner2 = new Vector(Math.max(corner1.x(), corner2.x()), Math.max(corner1.y(), corner2.y()), Math.max(corner1.z(), corner2.z()));
+    _boundingCenter = Vector.multiply(Vector.add(_boundingCorner1, _boundingCorner2), 0.5f);
+    _boundingRadius = Vector.distance(_boundingCorner1, _boundingCorner2) / 2;
+    _cachesModified();
+  }
+
+  /**
+   * Removes the node bounding volume, if any.
+   *
+   * @see #hasBoundingVolume()
+   */
+  public void resetBoundingVolume() {
+    _boundingCenter = null;
+    _boundingRadius = 0;
+    _boundingCorner1 = null;
+    _boundingCorner2 = null;
+    _cachesModified();
+  }
+
+  /**
+   * Returns {@code true} if the node has a bounding volume and {@code false} otherwise.
+   *
+   * @see #setBoundingBall(Vector, float)
+   * @see #setBoundingBox(Vector, Vector)
+   */
+  public boolean hasBoundingVolume() {
+    return _boundingCenter != null;
+  }
+
+  /**
+   * Internal use. Returns {@code true} if the node may draw something when visited, i.e.,
+   * if it isn't the {@link Graph#eye()} and its class overrides {@link #visit()}. The
+   * branches of such nodes having no bounding volume are never culled, see
+   * {@link Graph#updateVisibility()}.
+   */
+  protected boolean _isDrawable() {
+    return !isEye() && _visits.get(getClass());
+  }
+
+  // whether or not visit() is overridden, per node class
+  protected static final ClassValue<Boolean> _visits = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        return type.getMethod("visit").getDeclaringClass() != Node.class;
+      } catch (NoSuchMethodException exception) {
+        return false;
+      }
+    }
+  };
+
+  /**
+   * Returns the center of the ball enclosing the node bounding volume, defined in the
+   * node coordinate system, or {@code null} if the node has no bounding volume.
+   *
+   * @see #boundingRadius()
+   */
+  public Vector boundingCenter() {
+    return _boundingCenter == null ? null : _boundingCenter.get();
+  }
+
+  /**
+   * Returns the radius of the ball enclosing the node bounding volume, defined in the
+   * node coordinate system, or {@code 0} if the node has no bounding volume.
+   *
+   * @see #boundingCenter()
+   */
+  public float boundingRadius() {
+    return _boundingRadius;
+  }
+
+  /**
+   * Returns the minimum corner of the node bounding box, or {@code null} if the node
+   * bounding volume isn't a box.
+   *
+   * @see #setBoundingBox(Vector, Vector)
+   * @see #boundingCorner2()
+   */
+  public Vector boundingCorner1() {
+    return _boundingCorner1 == null ? null : _boundingCorner1.get();
+  }
+
+  /**
+   * Returns the maximum corner of the node bounding box, or {@code null} if the node
+   * bounding volume isn't a box.
+   *
+   * @see #setBoundingBox(Vector, Vector)
+   * @see #boundingCorner1()
+   */
+  public Vector boundingCorner2() {
+    return _boundingCorner2 == null ? null : _boundingCorner2.get();
+  }
+
+  /**
+   * Internal use. Flags the graph caches derived from the node transformations as outdated.
+   */
+  protected void _cachesModified() {
+    if (graph() != null)
+      graph()._invalidateNodeCaches();
+  }
+
   /**
    * Returns the graph this node belongs to.
    *
@@ -541,12 +773,12 @@ public class Node extends Frame implements Grabber {
 
   @Override
   public boolean track(Event event) {
-    if (event instanceof KeyEvent)
-      return track((KeyEvent) event);
-    if (event instanceof TapEvent)
-      return track((TapEvent) event);
     if (event instanceof MotionEvent)
       return track((MotionEvent) event);
+    if (event instanceof TapEvent)
+      return track((TapEvent) event);
+    if (event instanceof KeyEvent)
+      return track((KeyEvent) event);
     return false;
   }
 
@@ -556,10 +788,10 @@ public class Node extends Frame implements Grabber {
   public boolean track(MotionEvent motionEvent) {
     if (isEye())
       return false;
-    if (motionEvent instanceof MotionEvent1)
-      return track((MotionEvent1) motionEvent);
     if (motionEvent instanceof MotionEvent2)
       return track((MotionEvent2) motionEvent);
+    if (motionEvent instanceof MotionEvent1)
+      return track((MotionEvent1) motionEvent);
     if (motionEvent instanceof MotionEvent3)
       return track((MotionEvent3) motionEvent);
     if (motionEvent instanceof MotionEvent6)
@@ -609,14 +841,31 @@ public class Node extends Frame implements Grabber {
 
   /**
    * Picks the node according to the {@link #precision()}.
+   * <p>
+   * The projected position of reachable nodes is looked up from
+   * {@link Graph#projectedPositions()}, while that of unreachable ones is computed on its
+   * own.
    *
    * @see #precision()
    * @see #setPrecision(Precision)
    */
   public boolean track(float x, float y) {
-    Vector proj = _graph.projectedCoordinatesOf(position());
+    float projX, projY;
+    // don't project all the nodes on behalf of an unreachable one
+    _graph._updateOrder();
+    if (_graph._isOrdered(this)) {
+      float[] positions = _graph.projectedPositions();
+      projX = positions[3 * _index];
+      projY = positions[3 * _index + 1];
+    } else {
+      if (_tracking == null)
+        _tracking = new Vector();
+      Vector proj = _graph.projectedCoordinatesOf(position(_tracking), null, _tracking);
+      projX = proj._vector[0];
+      projY = proj._vector[1];
+    }
     float halfThreshold = precisionThreshold() / 2;
-    return ((Math.abs(x - proj._vector[0]) < halfThreshold) && (Math.abs(y - proj._vector[1]) < halfThreshold));
+    return ((Math.abs(x - projX) < halfThreshold) && (Math.abs(y - projY) < halfThreshold));
   }
 
   /**
@@ -633,13 +882,64 @@ public class Node extends Frame implements Grabber {
     return track(motionEvent6.event3().event2());
   }
 
+  /**
+   * Binds the {@code action} to the {@code eventType} events having the given
+   * {@code shortcut}, so that {@link #interact(Event)} performs it instead of calling the
+   * event type specific {@code interact} methods. A {@code null} {@code action} removes
+   * the binding. Actions aren't copied by {@link #get()}.
+   *
+   * @see #action(Class, Shortcut)
+   * @see #removeActions()
+   * @see ActionTable
+   */
+  public void setAction(Class<? extends Event> eventType, Shortcut shortcut, Action action) {
+    if (_actions == null) {
+      if (action == null)
+        return;
+      _actions = new ActionTable();
+    }
+    _actions.put(eventType, shortcut, action);
+  }
+
+  /**
+   * Returns the action bound to the {@code eventType} events having the given
+   * {@code shortcut}, or {@code null} if there's none.
+   *
+   * @see #setAction(Class, Shortcut, Action)
+   */
+  public Action action(Class<? extends Event> eventType, Shortcut shortcut) {
+    return _actions == null ? null : _actions.get(eventType, shortcut);
+  }
+
+  /**
+   * Removes all the actions bound to the node.
+   *
+   * @see #setAction(Class, Shortcut, Action)
+   */
+  public void removeActions() {
+    if (_actions != null)
+      _actions.clear();
+  }
+
+  /**
+   * Performs the action bound to the {@code event} type and shortcut (see
+   * {@link #setAction(Class, Shortcut, Action)}), if any. Otherwise calls the event type
+   * specific {@code interact} method, e.g., {@link #interact(MotionEvent2)}.
+   */
   @Override
   public void interact(Event event) {
-    if (event instanceof TapEvent)
-      interact((TapEvent) event);
+    if (_actions != null) {
+      Action action = _actions.get(event);
+      if (action != null) {
+        action.perform(event);
+        return;
+      }
+    }
     if (event instanceof MotionEvent)
       interact((MotionEvent) event);
-    if (event instanceof KeyEvent)
+    else if (event instanceof TapEvent)
+      interact((TapEvent) event);
+    else if (event instanceof KeyEvent)
       interact((KeyEvent) event);
   }
 
@@ -652,13 +952,13 @@ public class Node extends Frame implements Grabber {
    * {@link frames.input.event.MotionEvent}.
    */
   protected void interact(MotionEvent motionEvent) {
-    if (motionEvent instanceof MotionEvent1)
-      interact((MotionEvent1) motionEvent);
     if (motionEvent instanceof MotionEvent2)
       interact((MotionEvent2) motionEvent);
-    if (motionEvent instanceof MotionEvent3)
+    else if (motionEvent instanceof MotionEvent1)
+      interact((MotionEvent1) motionEvent);
+    else if (motionEvent instanceof MotionEvent3)
       interact((MotionEvent3) motionEvent);
-    if (motionEvent instanceof MotionEvent6)
+    else if (motionEvent instanceof MotionEvent6)
       interact((MotionEvent6) motionEvent);
   }
 
@@ -765,10 +1065,24 @@ public class Node extends Frame implements Grabber {
    */
   @Override
   protected void _modified() {
-    _lastUpdate = TimingHandler.frameCount;
+    if (graph() != null && graph().isTransformStoreEnabled())
+      graph()._store(this);
+    _ancestorModified();
+  }
+
+  /**
+   * Internal use. Same as {@link #_modified()}, but without updating the transform store
+   * entry of the node, since its local transformation hasn't changed. Called on the
+   * descendants of a modified node.
+   */
+  protected void _ancestorModified() {
+    super._modified();
+    // the eye moves often: spare the caches update when it has no effect on them
+    if (_children == null || !_children.isEmpty() || hasBoundingVolume() || !isEye())
+      _cachesModified();
     if (children() != null)
       for (Node child : children())
-        child._modified();
+        child._ancestorModified();
   }
 
   /**
@@ -2565,6 +2879,7 @@ public class Node extends Frame implements Grabber {
     if (precision == Precision.EXACT)
       System.out.println("Warning: EXACT picking precision will behave like FIXED. EXACT precision is meant to be implemented for derived nodes and scenes that support a backBuffer.");
     _Precision = precision;
+    _cachesModified();
   }
 
   /**
@@ -2595,8 +2910,10 @@ public class Node extends Frame implements Grabber {
    * @see #track(Event)
    */
   public void setPrecisionThreshold(float threshold) {
-    if (threshold >= 0)
+    if (threshold >= 0) {
       _threshold = threshold;
+      _cachesModified();
+    }
   }
 
   /**
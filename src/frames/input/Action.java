@@ -0,0 +1,22 @@
+/****************************************************************************************
+ * frames
+ * Copyright (c) 2018 National University of Colombia, https://visualcomputing.github.io/
+ * @author Jean Pierre Charalambos, https://github.com/VisualComputing
+ *
+ * All rights reserved. A 2D or 3D scene graph library providing eye, input and timing
+ * handling to a third party (real or non-real time) renderer. Released under the terms
+ * of the GPL v3.0 which is available at http://www.gnu.org/licenses/gpl.html
+ ****************************************************************************************/
+
+package frames.input;
+
+/**
+ * An interaction bound to an (event type, {@link Shortcut}) pair in an
+ * {@link ActionTable}.
+ */
+public interface Action {
+  /**
+   * Performs the interaction from the given {@code event}.
+   */
+  void perform(Event event);
+}
@@ -0,0 +1,221 @@
+/****************************************************************************************
+ * frames
+ * Copyright (c) 2018 National University of Colombia, https://visualcomputing.github.io/
+ * @author Jean Pierre Charalambos, https://github.com/VisualComputing
+ *
+ * All rights reserved. A 2D or 3D scene graph library providing eye, input and timing
+ * handling to a third party (real or non-real time) renderer. Released under the terms
+ * of the GPL v3.0 which is available at http://www.gnu.org/licenses/gpl.html
+ ****************************************************************************************/
+
+package frames.input;
+
+/**
+ * A dispatch table mapping (event type, {@link Shortcut}) pairs to {@link Action}s, so that
+ * grabbers may look up the action bound to an event with a single primitive-keyed hash
+ * lookup (see {@link #get(Event)}), instead of matching their shortcuts one by one.
+ * <p>
+ * The table key packs an index of the event type together with the shortcut code (see
+ * {@link Shortcut#_code()}). Events whose type isn't in the table are looked up with
+ * the closest registered super type, e.g., an action bound to {@code MotionEvent.class}
+ * is performed for all the motion events with the same shortcut, unless there's an action
+ * bound to their own type. The shortcut type should be that of the event type, e.g., a
+ * {@link frames.input.event.TapShortcut} for a {@link frames.input.event.TapEvent}.
+ */
+public class ActionTable {
+  // event types limit, since their index is kept in the upper 4 key bits
+  protected static final int _TYPES = 15;
+  protected Class<?>[] _types = new Class<?>[_TYPES];
+  protected int _typeCount;
+  // event classes already resolved to a type index (or -1)
+  protected Class<?>[] _classes = new Class<?>[8];
+  protected int[] _classTypes = new int[8];
+  protected int _classCount;
+  // open addressing (linear probing) hash map: empty slots have null actions
+  protected long[] _keys;
+  protected Action[] _actions;
+  protected int _size;
+
+  /**
+   * Constructs an empty table.
+   */
+  public ActionTable() {
+    _keys = new long[16];
+    _actions = new Action[16];
+  }
+
+  /**
+   * Returns the number of bound actions.
+   */
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * Returns {@code true} if there are no bound actions and {@code false} otherwise.
+   */
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /**
+   * Removes all the bound actions.
+   */
+  public void clear() {
+    for (int i = 0; i < _actions.length; i++)
+      _actions[i] = null;
+    _size = 0;
+  }
+
+  /**
+   * Binds the {@code action} to the {@code eventType} events having the given
+   * {@code shortcut}, replacing the previously bound one, if any. A {@code null}
+   * {@code action} removes the binding.
+   *
+   * @see #remove(Class, Shortcut)
+   */
+  public void put(Class<? extends Event> eventType, Shortcut shortcut, Action action) {
+    if (action == null) {
+      remove(eventType, shortcut);
+      return;
+    }
+    int type = _type(eventType);
+    if (type < 0) {
+      if (_typeCount == _TYPES)
+        throw new RuntimeException("An action table can't hold more than " + _TYPES + " event types");
+      type = _typeCount;
+      _types[_typeCount++] = eventType;
+      // a new type may change the type of already resolved classes
+      _classCount = 0;
+    }
+    long key = _key(type, shortcut);
+    int slot = _slot(key);
+    if (_actions[slot] == null) {
+      if (2 * (_size + 1) > _keys.length) {
+        _resize(2 * _keys.length);
+        slot = _slot(key);
+      }
+      _keys[slot] = key;
+      _size++;
+    }
+    _actions[slot] = action;
+  }
+
+  /**
+   * Returns the action bound to the {@code eventType} events having the given
+   * {@code shortcut}, or {@code null} if there's none.
+   */
+  public Action get(Class<? extends Event> eventType, Shortcut shortcut) {
+    int type = _type(eventType);
+    return type < 0 ? null : _actions[_slot(_key(type, shortcut))];
+  }
+
+  /**
+   * Returns the action bound to the {@code event} type (or to its closest super type in
+   * the table) and {@link Event#shortcut()}, or {@code null} if there's none.
+   */
+  public Action get(Event event) {
+    if (_size == 0 || event == null)
+      return null;
+    int type = _resolve(event.getClass());
+    return type < 0 ? null : _actions[_slot(_key(type, event.shortcut()))];
+  }
+
+  /**
+   * Removes the action bound to the {@code eventType} events having the given
+   * {@code shortcut}. Returns {@code true} if there was one and {@code false} otherwise.
+   */
+  public boolean remove(Class<? extends Event> eventType, Shortcut shortcut) {
+    int type = _type(eventType);
+    if (type < 0)
+      return false;
+    int slot = _slot(_key(type, shortcut));
+    if (_actions[slot] == null)
+      return false;
+    _actions[slot] = null;
+    _size--;
+    // backward shift the following entries of the probe sequence
+    int mask = _keys.length - 1;
+    int hole = slot;
+    for (int i = (slot + 1) & mask; _actions[i] != null; i = (i + 1) & mask) {
+      int home = _hash(_keys[i]) & mask;
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        _keys[hole] = _keys[i];
+        _actions[hole] = _actions[i];
+        _actions[i] = null;
+        hole = i;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the index of the {@code eventType} in the table, or {@code -1} if it isn't
+   * there.
+   */
+  protected int _type(Class<?> eventType) {
+    for (int i = 0; i < _typeCount; i++)
+      if (_types[i] == eventType)
+        return i;
+    return -1;
+  }
+
+  /**
+   * Returns the index of the closest super type of the {@code eventClass} (itself
+   * included) in the table, or {@code -1} if there's none. Resolutions are cached.
+   */
+  protected int _resolve(Class<?> eventClass) {
+    for (int i = 0; i < _classCount; i++)
+      if (_classes[i] == eventClass)
+        return _classTypes[i];
+    int type = -1;
+    for (Class<?> superClass = eventClass; superClass != null && type < 0; superClass = superClass.getSuperclass())
+      type = _type(superClass);
+    if (_classCount == _classes.length) {
+      Class<?>[] classes = new Class<?>[2 * _classCount];
+      int[] classTypes = new int[2 * _classCount];
+      System.arraycopy(_classes, 0, classes, 0, _classCount);
+      System.arraycopy(_classTypes, 0, classTypes, 0, _classCount);
+      _classes = classes;
+      _classTypes = classTypes;
+    }
+    _classes[_classCount] = eventClass;
+    _classTypes[_classCount++] = type;
+    return type;
+  }
+
+  /**
+   * Returns the slot holding the {@code key}, or the empty slot where it should be put.
+   */
+  protected int _slot(long key) {
+    int mask = _keys.length - 1;
+    int slot = _hash(key) & mask;
+    while (_actions[slot] != null && _keys[slot] != key)
+      slot = (slot + 1) & mask;
+    return slot;
+  }
+
+  protected void _resize(int capacity) {
+    long[] keys = _keys;
+    Action[] actions = _actions;
+    _keys = new long[capacity];
+    _actions = new Action[capacity];
+    for (int i = 0; i < keys.length; i++)
+      if (actions[i] != null) {
+        int slot = _slot(keys[i]);
+        _keys[slot] = keys[i];
+        _actions[slot] = actions[i];
+      }
+  }
+
+  protected static long _key(int type, Shortcut shortcut) {
+    return ((long) type << 60) | shortcut._code();
+  }
+
+  protected static int _hash(long key) {
+    key ^= key >>> 33;
+    key *= 0xFF51AFD7ED558CCDL;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+}
@@ -10,7 +10,10 @@
 
 package frames.input;
 
+import frames.input.event.MotionEvent;
+
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 /**
@@ -35,9 +38,18 @@ import java.util.List;
  */
 public abstract class Agent {
   protected List<Grabber> _grabberPool;
+  // incremented on each grabber pool modification
+  protected long _grabbersVersion;
+  protected IdentityHashMap<Grabber, Integer> _positions;
+  protected long _positionsVersion = -1;
   protected Grabber _trackedGrabber, _defaultGrabber;
   protected boolean _trackingEnabled;
   protected InputHandler _handler;
+  // pending coalesced event, see handle(Event)
+  protected boolean _coalescing;
+  protected MotionEvent _coalescedEvent;
+  protected Grabber _coalescedGrabber;
+  protected boolean _coalescedEventOwned;
 
   /**
    * Constructs an Agent and registers is at the given inputHandler.
@@ -64,7 +76,10 @@ public abstract class Agent {
       setDefaultGrabber(null);
     if (trackedGrabber() == grabber)
       resetTrackedGrabber();
-    return _grabberPool.remove(grabber);
+    if (!_grabberPool.remove(grabber))
+      return false;
+    _grabbersVersion++;
+    return true;
   }
 
   /**
@@ -79,6 +94,7 @@ public abstract class Agent {
     setDefaultGrabber(null);
     _trackedGrabber = null;
     _grabberPool.clear();
+    _grabbersVersion++;
   }
 
   /**
@@ -121,9 +137,27 @@ public abstract class Agent {
       return false;
     if (hasGrabber(grabber))
       return false;
+    _grabbersVersion++;
     return _grabberPool.add(grabber);
   }
 
+  /**
+   * Internal use. Returns the position of {@code grabber} in the {@link #grabbers()} list,
+   * or {@code -1} if it isn't there. Positions are cached until the list is modified.
+   */
+  protected int _position(Grabber grabber) {
+    if (_positionsVersion != _grabbersVersion) {
+      if (_positions == null)
+        _positions = new IdentityHashMap<Grabber, Integer>();
+      _positions.clear();
+      for (int i = 0; i < _grabberPool.size(); i++)
+        _positions.put(_grabberPool.get(i), i);
+      _positionsVersion = _grabbersVersion;
+    }
+    Integer position = _positions.get(grabber);
+    return position == null ? -1 : position;
+  }
+
   /**
    * Feeds {@link #poll(Event)} and {@link #handle(Event)} with
    * the returned event. Returns null by default,
@@ -225,16 +259,27 @@ public abstract class Agent {
       if (tG.track(event))
         return trackedGrabber();
     // pick the first otherwise
-    _trackedGrabber = null;
-    for (Grabber grabber : _grabberPool)
-      if (grabber != dG && grabber != tG)
-        if (grabber.track(event)) {
-          _trackedGrabber = grabber;
-          return trackedGrabber();
-        }
+    _trackedGrabber = _pick(event, dG, tG);
     return trackedGrabber();
   }
 
+  /**
+   * Used by {@link #poll(Event)} to return the first grabber in {@link #grabbers()}
+   * meeting the {@link Grabber#track(Event)} condition, other than the
+   * {@code defaultGrabber} and the {@code trackedGrabber} (which have already been
+   * checked), or {@code null} if none does.
+   * <p>
+   * Default implementation queries all the grabbers, in order. Override it to narrow the
+   * search (e.g., with a spatial index) but keep the {@link #grabbers()} order priority.
+   */
+  protected Grabber _pick(Event event, Grabber defaultGrabber, Grabber trackedGrabber) {
+    for (Grabber grabber : _grabberPool)
+      if (grabber != defaultGrabber && grabber != trackedGrabber)
+        if (grabber.track(event))
+          return grabber;
+    return null;
+  }
+
   /**
    * Enqueues an Tuple(event, input()) on the
    * {@link InputHandler#tupleQueue()}, thus enabling a call on
@@ -243,6 +288,15 @@ public abstract class Agent {
    * scheduled for execution till the end of this main event loop iteration, see
    * {@link InputHandler#enqueueTuple(Tuple)} for
    * details).
+   * <p>
+   * If the tuple gets enqueued (i.e., if the method returns {@code true}), the
+   * {@code event} becomes owned by the {@link #inputHandler()}, which releases it once
+   * it's executed. Otherwise the caller keeps its ownership, see {@link EventPool}.
+   * <p>
+   * If the agent {@link #isCoalescing()}, relative motion events are held back and
+   * consecutive ones sent to the same grabber with the same shortcut are merged (see
+   * {@link MotionEvent#coalesce(MotionEvent)}), before being enqueued at the next
+   * {@link InputHandler#handle()} call.
    *
    * @see #inputGrabber()
    * @see #poll(Event)
@@ -253,9 +307,97 @@ public abstract class Agent {
     if (event.isNull())
       return false;
     Grabber inputGrabber = inputGrabber();
-    if (inputGrabber != null)
-      return inputHandler().enqueueTuple(new Tuple(event, inputGrabber));
-    return false;
+    if (inputGrabber == null)
+      return false;
+    if (!isCoalescing())
+      return inputHandler().enqueueTuple(event, inputGrabber);
+    synchronized (this) {
+      if (event instanceof MotionEvent && _coalescedGrabber == inputGrabber && _coalescedEvent != null
+          && _coalescedEvent.canCoalesce((MotionEvent) event)) {
+        // the caller may still read the held back event, so it's merged into a copy
+        if (!_coalescedEventOwned) {
+          _coalescedEvent = _coalescedEvent.get();
+          _coalescedEventOwned = true;
+        }
+        _coalescedEvent.coalesce((MotionEvent) event);
+        event.release();
+        return true;
+      }
+      _flushCoalesced();
+      if (event instanceof MotionEvent && ((MotionEvent) event).isRelative() && !event.fired() && !event.flushed()) {
+        _coalescedEvent = (MotionEvent) event;
+        _coalescedGrabber = inputGrabber;
+        _coalescedEventOwned = event.pool() != null;
+        return true;
+      }
+      return inputHandler().enqueueTuple(event, inputGrabber);
+    }
+  }
+
+  /**
+   * Called by {@link InputHandler#handle()} once per main event loop iteration, right
+   * after the agent feeds are handled. Enqueues the pending coalesced event, if any (see
+   * {@link #isCoalescing()}). Override it to enqueue events from other sources, e.g., see
+   * {@link ReplayAgent}.
+   */
+  protected void _update() {
+    _flushCoalesced();
+  }
+
+  /**
+   * Enqueues the pending coalesced event, if any.
+   *
+   * @see #isCoalescing()
+   */
+  protected synchronized void _flushCoalesced() {
+    if (_coalescedEvent == null)
+      return;
+    if (!inputHandler().enqueueTuple(_coalescedEvent, _coalescedGrabber) && _coalescedEventOwned)
+      _coalescedEvent.release();
+    _coalescedEvent = null;
+    _coalescedGrabber = null;
+    _coalescedEventOwned = false;
+  }
+
+  /**
+   * Returns {@code true} if this agent coalesces the relative motion events it
+   * {@link #handle(Event)}s, and {@code false} otherwise. Coalescing makes the
+   * interaction cost scale with the frame rate rather than with the device rate, which
+   * is useful for high-frequency devices. Disabled by default.
+   *
+   * @see #enableCoalescing()
+   */
+  public boolean isCoalescing() {
+    return _coalescing;
+  }
+
+  /**
+   * Enables motion event coalescing.
+   *
+   * @see #disableCoalescing()
+   * @see #isCoalescing()
+   */
+  public void enableCoalescing() {
+    setCoalescing(true);
+  }
+
+  /**
+   * Disables motion event coalescing.
+   *
+   * @see #enableCoalescing()
+   */
+  public void disableCoalescing() {
+    setCoalescing(false);
+  }
+
+  /**
+   * Sets the {@link #isCoalescing()} value. Disabling it enqueues the pending coalesced
+   * event, if any.
+   */
+  public void setCoalescing(boolean enable) {
+    _coalescing = enable;
+    if (!isCoalescing())
+      _flushCoalesced();
   }
 
   /**
@@ -12,6 +12,8 @@ package frames.input;
 
 import frames.input.event.TapEvent;
 
+import java.nio.ByteBuffer;
+
 /**
  * The root of all events that are to be handled by an {@link Agent}.
  * Every Event encapsulates a {@link Shortcut}. Gesture initialization and
@@ -26,7 +28,14 @@ import frames.input.event.TapEvent;
  * If you ever need to define you're own event type, derive from this class; and, optional,
  * declare a shortcut type for your event (overriding the {@link #shortcut()). For details
  * refer to the {@link Shortcut}. If your custom event class defines it's own attributes, its
- * {@link #get()} method should be overridden.
+ * {@link #get()} and {@link #set(Event)} methods should be overridden.
+ * <p>
+ * Events may be recycled from an {@link EventPool} (see {@link EventPool#acquire()}), so
+ * that agents don't allocate at steady state. Pooled events are owned by the agent that
+ * acquires them until it enqueues them (see {@link Agent#handle(Event)}), after which they
+ * are owned by the {@link InputHandler}, which {@link #release()}s them once the
+ * {@link Grabber#interact(Event)} call returns. Grabbers should thus never keep a
+ * reference to the events they receive: use {@link #get()} to keep a (non pooled) copy.
  *
  * <b>Note</b> Event detection/reduction could happened in several different ways.
  * For instance, in the context of Java-based application, it typically takes place when
@@ -50,6 +59,10 @@ public class Event {
   protected int _modifiers;
   protected long _timestamp;
   protected int _id;
+  protected Shortcut _shortcut;
+  // null if the event isn't pooled
+  protected EventPool<? extends Event> _pool;
+  protected boolean _free;
 
   /**
    * Constructs an event with an "empty" {@link Shortcut}.
@@ -73,18 +86,108 @@ public class Event {
   protected Event(Event other) {
     this._modifiers = other._modifiers;
     this._id = other._id;
-    this._timestamp = System.currentTimeMillis();
+    this._timestamp = other._timestamp;
     this._fire = other._fire;
     this._flush = other._flush;
+    this._shortcut = other._shortcut;
   }
 
+  /**
+   * Returns a (non pooled) copy of this event, which may be safely kept by the caller.
+   *
+   * @see #set(Event)
+   */
   public Event get() {
     return new Event(this);
   }
 
+  /**
+   * Copies the {@code other} event attributes into this event. Derived classes defining
+   * their own attributes should override it.
+   *
+   * @see #get()
+   */
+  public Event set(Event other) {
+    this._modifiers = other._modifiers;
+    this._id = other._id;
+    this._timestamp = other._timestamp;
+    this._fire = other._fire;
+    this._flush = other._flush;
+    this._shortcut = other._shortcut;
+    return this;
+  }
+
+  /**
+   * Resets the event {@link #fired()} and {@link #flushed()} flags and its {@link #timestamp()},
+   * taking the given {@code modifiers} and {@code id} as its {@link Shortcut}. Used by the
+   * event {@code set} methods which reinitialize (pooled) events.
+   */
+  protected void _reset(int modifiers, int id) {
+    _modifiers = modifiers;
+    _id = id;
+    _timestamp = System.currentTimeMillis();
+    _fire = false;
+    _flush = false;
+  }
+
+  /**
+   * Returns a copy of this event from the same {@link EventPool} if this event is pooled,
+   * and {@link #get()} otherwise. Used by {@link #fire()} and {@link #flush()}.
+   */
+  protected Event _copy() {
+    if (_pool == null)
+      return get();
+    return _pool.acquire().set(this);
+  }
+
+  /**
+   * Writes the event attributes, but its {@link #timestamp()}, into the {@code buffer}.
+   * Used by the {@link InputRecorder}. Derived classes defining their own attributes
+   * should override it, together with {@link #_read(ByteBuffer)}.
+   */
+  protected void _write(ByteBuffer buffer) {
+    buffer.putInt(_modifiers);
+    buffer.putInt(_id);
+    buffer.put((byte) ((_fire ? 1 : 0) | (_flush ? 2 : 0)));
+  }
+
+  /**
+   * Reads the event attributes written by {@link #_write(ByteBuffer)} from the
+   * {@code buffer}. Used by the {@link ReplayAgent}.
+   */
+  protected void _read(ByteBuffer buffer) {
+    _modifiers = buffer.getInt();
+    _id = buffer.getInt();
+    byte flags = buffer.get();
+    _fire = (flags & 1) != 0;
+    _flush = (flags & 2) != 0;
+  }
+
+  /**
+   * Returns the {@link EventPool} this event was acquired from, or {@code null} if the
+   * event isn't pooled.
+   *
+   * @see #release()
+   */
+  public EventPool<? extends Event> pool() {
+    return _pool;
+  }
+
+  /**
+   * Returns this event to its {@link #pool()}, so that it may be recycled. Only the event
+   * owner (see the class documentation) may call it and only once: the event shouldn't be
+   * accessed afterwards. Returns {@code false} if the event isn't pooled or if it has
+   * already been released, and {@code true} otherwise.
+   *
+   * @see EventPool#acquire()
+   */
+  public boolean release() {
+    return _pool != null && _pool._release(this);
+  }
+
   /**
    * Same as {@code this.get()} but sets the {@link #flushed()} flag to true. Only agents
-   * may call this.
+   * may call this. The copy comes from the event {@link #pool()} if it's pooled.
    *
    * @see #flushed()
    */
@@ -93,14 +196,14 @@ public class Event {
       System.out.println("Warning: event already " + (fired() ? "fired" : "flushed"));
       return this;
     }
-    Event event = this.get();
+    Event event = _copy();
     event._flush = true;
     return event;
   }
 
   /**
    * Same as {@code this.get()} but sets the {@link #fired()} flag to true. Only agents
-   * may call this.
+   * may call this. The copy comes from the event {@link #pool()} if it's pooled.
    *
    * @see #flushed()
    */
@@ -109,7 +212,7 @@ public class Event {
       System.out.println("Warning: event already " + (fired() ? "fired" : "flushed"));
       return this;
     }
-    Event event = this.get();
+    Event event = _copy();
     event._fire = true;
     return event;
   }
@@ -135,11 +238,14 @@ public class Event {
   }
 
   /**
-   * @return the shortcut encapsulated by this event.
+   * @return the shortcut encapsulated by this event. Since shortcuts are immutable, it's
+   * cached until the event {@link #modifiers()} or {@link #id()} change.
    * @see Shortcut
    */
   public Shortcut shortcut() {
-    return new Shortcut(modifiers(), id());
+    if (_shortcut == null || _shortcut.getClass() != Shortcut.class || _shortcut.modifiers() != modifiers() || _shortcut.id() != id())
+      _shortcut = new Shortcut(modifiers(), id());
+    return _shortcut;
   }
 
   /**
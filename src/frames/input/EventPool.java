@@ -0,0 +1,104 @@
+/****************************************************************************************
+ * frames
+ * Copyright (c) 2018 National University of Colombia, https://visualcomputing.github.io/
+ * @author Jean Pierre Charalambos, https://github.com/VisualComputing
+ *
+ * All rights reserved. A 2D or 3D scene graph library providing eye, input and timing
+ * handling to a third party (real or non-real time) renderer. Released under the terms
+ * of the GPL v3.0 which is available at http://www.gnu.org/licenses/gpl.html
+ ****************************************************************************************/
+
+package frames.input;
+
+/**
+ * A bounded pool of recyclable events of the same type as its {@link #prototype()}, so
+ * that agents don't allocate an event per input at steady state. Typical usage within
+ * an agent:
+ * <p>
+ * {@code EventPool<MotionEvent2> pool = new EventPool<MotionEvent2>(new MotionEvent2(0, 0));}<br>
+ * {@code MotionEvent2 event = pool.acquire().set(previous, x, y, modifiers, id);}<br>
+ * {@code if (!handle(event)) event.release();}<br>
+ * <p>
+ * Acquired events should be reinitialized with their {@code set} methods. Refer to the
+ * {@link Event} documentation for the pooled events ownership contract.
+ * <p>
+ * Events may be acquired and released from different threads (e.g., a device thread and
+ * the one calling {@link InputHandler#handle()}).
+ */
+public class EventPool<E extends Event> {
+  protected E _prototype;
+  protected Event[] _events;
+  protected int _size;
+
+  /**
+   * Same as {@code this(prototype, 64)}.
+   *
+   * @see #EventPool(Event, int)
+   */
+  public EventPool(E prototype) {
+    this(prototype, 64);
+  }
+
+  /**
+   * Constructs a pool which keeps up to {@code capacity} released events. New events
+   * are allocated as {@code prototype.get()} copies, so the {@code prototype} type
+   * should override {@link Event#get()} and {@link Event#set(Event)}.
+   */
+  public EventPool(E prototype, int capacity) {
+    if (capacity < 0)
+      throw new RuntimeException("Event pool capacity should be non-negative");
+    _prototype = prototype;
+    _events = new Event[capacity];
+  }
+
+  /**
+   * Returns the event used to allocate the pool events.
+   */
+  public E prototype() {
+    return _prototype;
+  }
+
+  /**
+   * Returns the maximum number of released events the pool keeps.
+   */
+  public int capacity() {
+    return _events.length;
+  }
+
+  /**
+   * Returns the number of released events ready to be recycled.
+   */
+  public synchronized int size() {
+    return _size;
+  }
+
+  /**
+   * Returns a recycled event, or a new one if there are none. The event attributes are
+   * those of its last use, so it should be reinitialized by the caller, who owns it until
+   * it's handed over to the input handler or {@link Event#release()}d.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized E acquire() {
+    E event;
+    if (_size > 0) {
+      event = (E) _events[--_size];
+      _events[_size] = null;
+    } else
+      event = (E) _prototype.get();
+    event._pool = this;
+    event._free = false;
+    return event;
+  }
+
+  /**
+   * Used by {@link Event#release()}.
+   */
+  protected synchronized boolean _release(Event event) {
+    if (event._pool != this || event._free)
+      return false;
+    event._free = true;
+    if (_size < _events.length)
+      _events[_size++] = event;
+    return true;
+  }
+}
@@ -11,7 +11,6 @@
 package frames.input;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -30,13 +29,34 @@ import java.util.List;
 public class InputHandler {
   // D E V I C E S & E V E N T S
   protected List<Agent> _agents;
-  protected LinkedList<Tuple> _tupleQueue;
+  protected TupleQueue _tupleQueue;
+  protected Tuple[] _batch = new Tuple[64];
+  // recycled tuples, see enqueueTuple(Event, Grabber)
+  protected Tuple[] _tuples = new Tuple[64];
+  protected int _tupleCount;
+  protected InputRecorder _recorder;
 
+  /**
+   * Same as {@code this(1024)}.
+   */
   public InputHandler() {
+    this(1024);
+  }
+
+  /**
+   * Constructs an input handler which {@link #tupleQueue()} holds up to {@code capacity}
+   * tuples (rounded up to the next power of two).
+   */
+  public InputHandler(int capacity) {
     // agents
     _agents = new ArrayList<Agent>();
     // events
-    _tupleQueue = new LinkedList<Tuple>();
+    _tupleQueue = new TupleQueue(capacity) {
+      @Override
+      protected void _discard(Tuple tuple) {
+        _dispose(tuple);
+      }
+    };
   }
 
   /**
@@ -56,6 +76,14 @@ public class InputHandler {
    * 2. User-defined action consumer loop: which for each
    * {@link Tuple} calls
    * {@link Tuple#interact()}.<br>
+   * <p>
+   * The agents pending coalesced events (see {@link Agent#isCoalescing()}) are enqueued
+   * right after their feeds are handled. The executed tuples are logged by the
+   * {@link #recorder()}, if any.
+   * <p>
+   * The tuples are drained in batches, and only those queued before the consumer loop
+   * starts are executed, so that producers running on other threads can't stall it.
+   * Once executed, the tuple events are {@link Event#release()}d, see {@link EventPool}.
    *
    * @see Agent#feed()
    * @see Agent#pollFeed()
@@ -66,10 +94,48 @@ public class InputHandler {
     for (Agent agent : agents()) {
       agent.poll(agent.pollFeed() != null ? agent.pollFeed() : agent.feed());
       agent.handle(agent.handleFeed() != null ? agent.handleFeed() : agent.feed());
+      agent._update();
     }
     // 2. Low level events
-    while (!_tupleQueue.isEmpty())
-      _tupleQueue.remove().interact();
+    int pending = _tupleQueue.size();
+    while (pending > 0) {
+      int count = _tupleQueue.drain(_batch);
+      if (count == 0)
+        break;
+      for (int i = 0; i < count; i++) {
+        Tuple tuple = _batch[i];
+        _batch[i] = null;
+        if (_recorder != null)
+          _recorder.record(tuple);
+        tuple.interact();
+        _dispose(tuple);
+      }
+      pending -= count;
+    }
+    if (_recorder != null)
+      _recorder.flush();
+  }
+
+  /**
+   * Returns the input recorder, or {@code null} if the input handler isn't recording.
+   *
+   * @see #setRecorder(InputRecorder)
+   */
+  public InputRecorder recorder() {
+    return _recorder;
+  }
+
+  /**
+   * Sets the {@code recorder} which logs all the tuples executed by {@link #handle()}.
+   * Pass {@code null} to stop recording (the previous recorder isn't closed).
+   *
+   * @see InputRecorder
+   * @see ReplayAgent
+   */
+  public void setRecorder(InputRecorder recorder) {
+    if (_recorder != null)
+      _recorder.flush();
+    _recorder = recorder;
   }
 
   /**
@@ -188,34 +254,98 @@ public class InputHandler {
 
   /**
    * Returns the event tuple queue. Rarely needed.
+   * <p>
+   * Note that the queue is a lock-free {@link TupleQueue} instead of the former
+   * {@code LinkedList<Tuple>}, so code iterating or modifying the list should use the
+   * queue methods (or {@link #enqueueTuple(Tuple)} and {@link #removeTuple(Event)}) instead.
    */
-  public LinkedList<Tuple> tupleQueue() {
+  public TupleQueue tupleQueue() {
     return _tupleQueue;
   }
 
   /**
    * Enqueues the eventTuple for later execution which happens at the end of
-   * {@link #handle()}. Returns {@code true} if succeeded and {@code false} otherwise.
+   * {@link #handle()}. Returns {@code true} if succeeded and {@code false} otherwise
+   * (i.e., if the tuple is already queued or the queue is full).
+   * <p>
+   * Lock-free and safe to call from any thread, e.g., from a device thread.
    *
    * @see #handle()
+   * @see TupleQueue#offer(Tuple)
    */
   public boolean enqueueTuple(Tuple tuple) {
-    if (!_tupleQueue.contains(tuple))
-      return _tupleQueue.add(tuple);
+    return _tupleQueue.offer(tuple);
+  }
+
+  /**
+   * Same as {@code enqueueTuple(new Tuple(event, grabber))}, but the tuple is recycled
+   * once it's executed. Note that the {@code event} ownership is transferred to the input
+   * handler only if the tuple gets enqueued, see {@link Event#release()}.
+   *
+   * @see #enqueueTuple(Tuple)
+   * @see Agent#handle(Event)
+   */
+  public boolean enqueueTuple(Event event, Grabber grabber) {
+    Tuple tuple = null;
+    synchronized (_tuples) {
+      if (_tupleCount > 0) {
+        tuple = _tuples[--_tupleCount];
+        _tuples[_tupleCount] = null;
+      }
+    }
+    if (tuple == null) {
+      tuple = new Tuple(event, grabber);
+      tuple._recyclable = true;
+    } else {
+      tuple._event = event;
+      tuple._grabber = grabber;
+    }
+    if (_tupleQueue.offer(tuple))
+      return true;
+    _recycle(tuple);
     return false;
   }
 
   /**
-   * Removes the given event from the event queue. No action is executed.
+   * Recycles the {@code tuple} (see {@link #_recycle(Tuple)}) and releases its event, once
+   * it has been executed or discarded by the {@link #tupleQueue()}.
+   */
+  protected void _dispose(Tuple tuple) {
+    Event event = tuple.event();
+    _recycle(tuple);
+    if (event != null)
+      event.release();
+  }
+
+  /**
+   * Recycles the {@code tuple} if it was enqueued with
+   * {@link #enqueueTuple(Event, Grabber)}.
+   */
+  protected void _recycle(Tuple tuple) {
+    if (!tuple._recyclable)
+      return;
+    tuple._event = null;
+    tuple._grabber = null;
+    synchronized (_tuples) {
+      if (_tupleCount < _tuples.length)
+        _tuples[_tupleCount++] = tuple;
+    }
+  }
+
+  /**
+   * Removes the tuples holding the given event from the event queue. No action is
+   * executed, and the tuples are recycled (and the event released) as they're dequeued.
+   * Should be called from the thread calling {@link #handle()}.
    *
    * @param event to be removed.
    */
   public void removeTuple(Event event) {
-    _tupleQueue.remove(event);
+    _tupleQueue.cancel(event);
   }
 
   /**
-   * Clears the event queue. Nothing is executed.
+   * Clears the event queue. Nothing is executed. Should be called from the thread
+   * calling {@link #handle()}.
    */
   public void removeTuples() {
     _tupleQueue.clear();
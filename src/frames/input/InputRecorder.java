@@ -0,0 +1,209 @@
+/****************************************************************************************
+ * frames
+ * Copyright (c) 2018 National University of Colombia, https://visualcomputing.github.io/
+ * @author Jean Pierre Charalambos, https://github.com/VisualComputing
+ *
+ * All rights reserved. A 2D or 3D scene graph library providing eye, input and timing
+ * handling to a third party (real or non-real time) renderer. Released under the terms
+ * of the GPL v3.0 which is available at http://www.gnu.org/licenses/gpl.html
+ ****************************************************************************************/
+
+package frames.input;
+
+import frames.input.event.*;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Logs the {@link Tuple}s executed by an {@link InputHandler} into a compact binary file,
+ * to be fed back later by a {@link ReplayAgent}, e.g., to reproduce an interaction bug or
+ * to benchmark the {@link Grabber#interact(Event)} paths without a human at the mouse.
+ * Start recording with {@link InputHandler#setRecorder(InputRecorder)}.
+ * <p>
+ * The log begins with a header ({@link #MAGIC}, {@link #VERSION} and the timestamp of
+ * the first record) followed by one record per tuple: its length (short), event type
+ * (byte, see {@link #type(Event)}), grabber id (long, see {@link #_id(Grabber)}),
+ * timestamp delta to the previous record (int) and the event attributes (see
+ * {@link Event#_write(ByteBuffer)}). Records are appended to a buffer which is written
+ * through a file channel when it's full and at the end of each
+ * {@link InputHandler#handle()} call.
+ * <p>
+ * Recorders aren't thread-safe: records are only appended from the thread executing
+ * the tuples.
+ */
+public class InputRecorder {
+  public static final int MAGIC = 0x46524C47;
+  public static final int VERSION = 2;
+  // event types
+  public static final byte EVENT = 0, KEY = 1, TAP = 2, MOTION = 3, MOTION1 = 4, MOTION2 = 5, MOTION3 = 6, MOTION6 = 7;
+  // largest record defined by the library event types (with some slack), records of
+  // derived event types may be larger
+  protected static final int _RECORD_SIZE = 256;
+
+  protected InputHandler _handler;
+  protected FileChannel _channel;
+  protected ByteBuffer _buffer;
+  protected long _timestamp;
+  protected long _count;
+
+  /**
+   * Creates (or truncates) the log file at {@code path}, whose grabber ids are resolved
+   * from the {@code handler} agents.
+   */
+  public InputRecorder(InputHandler handler, String path) {
+    _handler = handler;
+    _buffer = ByteBuffer.allocateDirect(1 << 16);
+    try {
+      _channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException exception) {
+      throw new RuntimeException("Cannot open input log " + path, exception);
+    }
+    _timestamp = -1;
+    _buffer.putInt(MAGIC);
+    _buffer.putInt(VERSION);
+  }
+
+  /**
+   * Returns the number of recorded tuples.
+   */
+  public long count() {
+    return _count;
+  }
+
+  /**
+   * Returns {@code true} if the log hasn't been {@link #close()}d.
+   */
+  public boolean isOpen() {
+    return _channel.isOpen();
+  }
+
+  /**
+   * Appends the {@code tuple} to the log. Called by {@link InputHandler#handle()}.
+   */
+  public void record(Tuple tuple) {
+    Event event = tuple.event();
+    if (event == null || !isOpen())
+      return;
+    if (_buffer.remaining() < _RECORD_SIZE)
+      flush();
+    if (_timestamp < 0) {
+      _timestamp = event.timestamp();
+      _buffer.putLong(_timestamp);
+    }
+    int start = _buffer.position();
+    try {
+      _append(tuple);
+    } catch (BufferOverflowException exception) {
+      // a large derived event record: retry it on its own
+      _buffer.position(start);
+      flush();
+      try {
+        _append(tuple);
+      } catch (BufferOverflowException tooLarge) {
+        _buffer.clear();
+        throw new RuntimeException("Event record too large to be logged: " + event.getClass().getName());
+      }
+    }
+    _timestamp = event.timestamp();
+    _count++;
+  }
+
+  /**
+   * Internal use. Writes the {@code tuple} record at the buffer position. Throws a
+   * {@code BufferOverflowException} if it doesn't fit.
+   */
+  protected void _append(Tuple tuple) {
+    Event event = tuple.event();
+    int start = _buffer.position();
+    _buffer.putShort((short) 0);
+    _buffer.put(type(event));
+    _buffer.putLong(tuple.grabber() == null ? -1 : _id(tuple.grabber()));
+    _buffer.putInt((int) (event.timestamp() - _timestamp));
+    event._write(_buffer);
+    int length = _buffer.position() - start - 2;
+    if (length > 0xFFFF)
+      throw new BufferOverflowException();
+    _buffer.putShort(start, (short) length);
+  }
+
+  /**
+   * Writes the buffered records to the log file.
+   */
+  public void flush() {
+    if (_buffer.position() == 0 || !isOpen())
+      return;
+    _buffer.flip();
+    try {
+      while (_buffer.hasRemaining())
+        _channel.write(_buffer);
+    } catch (IOException exception) {
+      throw new RuntimeException("Cannot write input log", exception);
+    } finally {
+      _buffer.clear();
+    }
+  }
+
+  /**
+   * Flushes and closes the log file. The recorder should then be removed from its input
+   * handler, see {@link InputHandler#setRecorder(InputRecorder)}.
+   */
+  public void close() {
+    if (!isOpen())
+      return;
+    flush();
+    try {
+      _channel.close();
+    } catch (IOException exception) {
+      throw new RuntimeException("Cannot close input log", exception);
+    }
+  }
+
+  /**
+   * Returns the id of the {@code grabber} written to the log, or {@code -1} if no agent
+   * has it: the index of the first input handler agent having it (replay agents aside) in
+   * the upper 32 bits, and its position in that agent {@link Agent#grabbers()} in the
+   * lower ones. Override it (together with {@link ReplayAgent#_grabber(long)}) to use other
+   * grabber ids.
+   */
+  protected long _id(Grabber grabber) {
+    int index = 0;
+    for (Agent agent : _handler.agents()) {
+      if (agent instanceof ReplayAgent)
+        continue;
+      int position = agent._position(grabber);
+      if (position >= 0)
+        return ((long) index << 32) | position;
+      index++;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the log type of the {@code event}. Events of other types than those defined
+   * by the library are logged as plain events.
+   */
+  public static byte type(Event event) {
+    if (event instanceof MotionEvent) {
+      if (event instanceof MotionEvent1)
+        return MOTION1;
+      if (event instanceof MotionEvent2)
+        return MOTION2;
+      if (event instanceof MotionEvent3)
+        return MOTION3;
+      if (event instanceof MotionEvent6)
+        return MOTION6;
+      return MOTION;
+    }
+    if (event instanceof TapEvent)
+      return TAP;
+    if (event instanceof KeyEvent)
+      return KEY;
+    return EVENT;
+  }
+}
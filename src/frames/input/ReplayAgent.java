@@ -0,0 +1,238 @@
+/****************************************************************************************
+ * frames
+ * Copyright (c) 2018 National University of Colombia, https://visualcomputing.github.io/
+ * @author Jean Pierre Charalambos, https://github.com/VisualComputing
+ *
+ * All rights reserved. A 2D or 3D scene graph library providing eye, input and timing
+ * handling to a third party (real or non-real time) renderer. Released under the terms
+ * of the GPL v3.0 which is available at http://www.gnu.org/licenses/gpl.html
+ ****************************************************************************************/
+
+package frames.input;
+
+import frames.input.event.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An agent feeding back the tuples logged by an {@link InputRecorder}. Each recorded
+ * event is sent straight to its recorded grabber (see {@link #_grabber(long)}), without
+ * {@link #poll(Event)}ing, so that the replay is deterministic as long as the grabbers
+ * are set up as they were while recording.
+ * <p>
+ * The replay takes place along the {@link InputHandler#handle()} calls, either at the
+ * original speed (see {@link #isRealTime()}) or as fast as the
+ * {@link InputHandler#tupleQueue()} allows it. The replayed events are recycled from
+ * event pools, see {@link EventPool}.
+ */
+public class ReplayAgent extends Agent {
+  protected FileChannel _channel;
+  protected ByteBuffer _buffer;
+  protected boolean _realTime;
+  protected long _start;
+  protected long _firstTimestamp, _timestamp;
+  protected long _count;
+  protected boolean _finished;
+  // next record, read but not yet enqueued
+  protected Event _event;
+  protected long _grabberId;
+  protected EventPool<?>[] _pools;
+
+  /**
+   * Opens the log file at {@code path} and registers the agent at the {@code handler}.
+   * The replay takes place at the original speed, see {@link #setRealTime(boolean)}.
+   */
+  public ReplayAgent(InputHandler handler, String path) {
+    super(handler);
+    _buffer = ByteBuffer.allocateDirect(1 << 16);
+    _buffer.flip();
+    try {
+      _channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+    } catch (IOException exception) {
+      throw new RuntimeException("Cannot open input log " + path, exception);
+    }
+    if (!_fill(8) || _buffer.getInt() != InputRecorder.MAGIC)
+      throw new RuntimeException(path + " isn't an input log");
+    if (_buffer.getInt() != InputRecorder.VERSION)
+      throw new RuntimeException("Unsupported input log version in " + path);
+    // empty logs have no first timestamp
+    if (_fill(8))
+      _timestamp = _firstTimestamp = _buffer.getLong();
+    else
+      close();
+    _pools = new EventPool<?>[8];
+    _pools[InputRecorder.EVENT] = new EventPool<Event>(new Event());
+    _pools[InputRecorder.KEY] = new EventPool<KeyEvent>(new KeyEvent('\0'));
+    _pools[InputRecorder.TAP] = new EventPool<TapEvent>(new TapEvent(0, 0, Event.NO_ID));
+    _pools[InputRecorder.MOTION] = new EventPool<MotionEvent>(new MotionEvent());
+    _pools[InputRecorder.MOTION1] = new EventPool<MotionEvent1>(new MotionEvent1(0));
+    _pools[InputRecorder.MOTION2] = new EventPool<MotionEvent2>(new MotionEvent2(0, 0));
+    _pools[InputRecorder.MOTION3] = new EventPool<MotionEvent3>(new MotionEvent3(0, 0, 0));
+    _pools[InputRecorder.MOTION6] = new EventPool<MotionEvent6>(new MotionEvent6(0, 0, 0, 0, 0, 0));
+    setRealTime(true);
+  }
+
+  /**
+   * Returns {@code true} if the log is replayed at its original speed and {@code false}
+   * if it's replayed as fast as possible.
+   *
+   * @see #enableRealTime()
+   */
+  public boolean isRealTime() {
+    return _realTime;
+  }
+
+  /**
+   * Replays the log at its original speed.
+   *
+   * @see #disableRealTime()
+   */
+  public void enableRealTime() {
+    setRealTime(true);
+  }
+
+  /**
+   * Replays the log as fast as possible.
+   *
+   * @see #enableRealTime()
+   */
+  public void disableRealTime() {
+    setRealTime(false);
+  }
+
+  /**
+   * Sets the {@link #isRealTime()} value.
+   */
+  public void setRealTime(boolean enable) {
+    _realTime = enable;
+    // restart the clock
+    _start = -1;
+  }
+
+  /**
+   * Returns the number of replayed tuples.
+   */
+  public long count() {
+    return _count;
+  }
+
+  /**
+   * Returns {@code true} once the whole log has been replayed (or the agent
+   * {@link #close()}d) and {@code false} otherwise.
+   */
+  public boolean isFinished() {
+    return _finished;
+  }
+
+  /**
+   * Closes the log file.
+   */
+  public void close() {
+    _finished = true;
+    if (_event != null) {
+      _event.release();
+      _event = null;
+    }
+    try {
+      _channel.close();
+    } catch (IOException exception) {
+      throw new RuntimeException("Cannot close input log", exception);
+    }
+  }
+
+  /**
+   * Enqueues the log records that are due, i.e., those whose original time offset (from
+   * the first record) has elapsed since the replay started if {@link #isRealTime()}, or
+   * as many as the {@link InputHandler#tupleQueue()} accepts otherwise.
+   */
+  @Override
+  protected void _update() {
+    super._update();
+    if (isFinished() || !inputHandler().isAgentRegistered(this))
+      return;
+    long now = System.currentTimeMillis();
+    if (_start < 0)
+      _start = now - (_timestamp - _firstTimestamp);
+    while (true) {
+      if (_event == null && !_next()) {
+        close();
+        return;
+      }
+      if (isRealTime() && _timestamp - _firstTimestamp > now - _start)
+        return;
+      Grabber grabber = _grabber(_grabberId);
+      if (grabber != null) {
+        if (!inputHandler().enqueueTuple(_event, grabber))
+          return;
+      } else
+        _event.release();
+      _event = null;
+      _count++;
+    }
+  }
+
+  /**
+   * Reads the next log record into {@link #_event}. Returns {@code false} at the end of
+   * the log.
+   */
+  protected boolean _next() {
+    if (!_fill(2))
+      return false;
+    int length = _buffer.getShort() & 0xFFFF;
+    if (!_fill(length))
+      return false;
+    int end = _buffer.position() + length;
+    int type = _buffer.get();
+    _grabberId = _buffer.getLong();
+    _timestamp += _buffer.getInt();
+    _event = _pools[type >= 0 && type < _pools.length ? type : InputRecorder.EVENT].acquire();
+    _event._read(_buffer);
+    _event._timestamp = _timestamp;
+    // skip the attributes of derived event types
+    _buffer.position(end);
+    return true;
+  }
+
+  /**
+   * Makes at least {@code bytes} bytes available in the read buffer. Returns
+   * {@code false} if the log ends before.
+   */
+  protected boolean _fill(int bytes) {
+    if (_buffer.remaining() >= bytes)
+      return true;
+    _buffer.compact();
+    try {
+      while (_buffer.position() < bytes)
+        if (_channel.read(_buffer) < 0)
+          break;
+    } catch (IOException exception) {
+      throw new RuntimeException("Cannot read input log", exception);
+    } finally {
+      _buffer.flip();
+    }
+    return _buffer.remaining() >= bytes;
+  }
+
+  /**
+   * Returns the grabber having the logged {@code id}, see {@link InputRecorder#_id(Grabber)}:
+   * the one at the id position in the {@link #grabbers()} of the input handler agent at the
+   * id index, replay agents aside. Returns {@code null} if there's no such grabber, in which
+   * case the record is skipped.
+   */
+  protected Grabber _grabber(long id) {
+    if (id < 0)
+      return null;
+    int index = (int) (id >>> 32), position = (int) id;
+    for (Agent agent : inputHandler().agents()) {
+      if (agent instanceof ReplayAgent)
+        continue;
+      if (index-- == 0)
+        return position < agent.grabbers().size() ? agent.grabbers().get(position) : null;
+    }
+    return null;
+  }
+}
@@ -83,4 +83,14 @@ public class Shortcut {
       return id() == other.id() && modifiers() == other.modifiers();
     return false;
   }
+
+  /**
+   * Returns a primitive code identifying the shortcut, such that shortcuts which
+   * {@link #matches(Shortcut)} have the same code: the {@link #id()} in the lower 32 bits
+   * and the (lower 12 bits of the) {@link #modifiers()} in the next ones. Derived classes
+   * may use bits 44 to 59 for their own attributes. Used by the {@link ActionTable}.
+   */
+  protected long _code() {
+    return ((long) (_modifiers & 0xFFF) << 32) | (_id & 0xFFFFFFFFL);
+  }
 }
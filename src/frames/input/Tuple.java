@@ -22,6 +22,12 @@ package frames.input;
 public class Tuple {
   protected Event _event;
   protected Grabber _grabber;
+  // queued state, see TupleQueue
+  protected volatile int _state;
+  // queue position of its latest occurrence, see TupleQueue
+  protected volatile long _position;
+  // recycled by the InputHandler, see InputHandler.enqueueTuple(Event, Grabber)
+  protected boolean _recyclable;
 
   /**
    * Constructs a {@link Event},
@@ -0,0 +1,216 @@
+/****************************************************************************************
+ * frames
+ * Copyright (c) 2018 National University of Colombia, https://visualcomputing.github.io/
+ * @author Jean Pierre Charalambos, https://github.com/VisualComputing
+ *
+ * All rights reserved. A 2D or 3D scene graph library providing eye, input and timing
+ * handling to a third party (real or non-real time) renderer. Released under the terms
+ * of the GPL v3.0 which is available at http://www.gnu.org/licenses/gpl.html
+ ****************************************************************************************/
+
+package frames.input;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded multi-producer single-consumer queue of {@link Tuple}s, implemented as a
+ * lock-free ring buffer. Tuples may be {@link #offer(Tuple)}ed from any thread (e.g.,
+ * device threads), while they should only be {@link #poll()}ed (and {@link #cancel(Event)}ed
+ * or {@link #clear()}ed) from the thread handling them, see {@link InputHandler#handle()}.
+ * <p>
+ * A tuple may be queued only once at a time: offering an already queued tuple fails
+ * without scanning the queue, since each tuple carries its own queued state. Offering a
+ * cancelled tuple which hasn't been polled yet enqueues it again at the tail, its
+ * cancelled occurrence being skipped by {@link #poll()}, so that tuples are always polled
+ * in the order they were (last) offered.
+ */
+public class TupleQueue {
+  // tuple states: offering tuples are being enqueued by a producer, and orphaned ones
+  // had their cancelled occurrence polled meanwhile
+  protected static final int _IDLE = 0, _QUEUED = 1, _CANCELLED = 2, _OFFERING = 3, _ORPHANED = 4;
+  protected static final AtomicIntegerFieldUpdater<Tuple> _states = AtomicIntegerFieldUpdater.newUpdater(Tuple.class, "_state");
+
+  protected final AtomicReferenceArray<Tuple> _slots;
+  // slot i is free for the producer at position p when its sequence is p, and
+  // ready for the consumer when its sequence is p + 1
+  protected final AtomicLongArray _sequences;
+  protected final int _mask;
+  protected final AtomicLong _tail = new AtomicLong();
+  // only modified by the consumer
+  protected volatile long _head;
+
+  /**
+   * Constructs a queue able to hold at least {@code capacity} tuples (rounded up to the
+   * next power of two).
+   */
+  public TupleQueue(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30)
+      throw new RuntimeException("Tuple queue capacity should be in [1..2^30]");
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity)
+      size <<= 1;
+    _slots = new AtomicReferenceArray<Tuple>(size);
+    _sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++)
+      _sequences.set(i, i);
+    _mask = size - 1;
+  }
+
+  /**
+   * Returns the number of tuples the queue can hold.
+   */
+  public int capacity() {
+    return _mask + 1;
+  }
+
+  /**
+   * Returns the (approximate, when producers are running) number of queued tuples,
+   * including the cancelled occurrences not yet polled.
+   */
+  public int size() {
+    return (int) Math.max(0, Math.min(capacity(), _tail.get() - _head));
+  }
+
+  /**
+   * Returns {@code true} if there are no queued tuples and {@code false} otherwise.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Enqueues the {@code tuple}. Safe to call from any thread. Returns {@code false} if the
+   * tuple is already queued or if the queue is full, and {@code true} otherwise.
+   */
+  public boolean offer(Tuple tuple) {
+    int state;
+    do {
+      state = _states.get(tuple);
+      if (state != _IDLE && state != _CANCELLED)
+        return false;
+    } while (!_states.compareAndSet(tuple, state, _OFFERING));
+    while (true) {
+      long position = _tail.get();
+      int index = (int) position & _mask;
+      long difference = _sequences.get(index) - position;
+      if (difference == 0) {
+        if (_tail.compareAndSet(position, position + 1)) {
+          // a cancelled occurrence still in the ring becomes stale
+          tuple._position = position;
+          _states.set(tuple, _QUEUED);
+          _slots.set(index, tuple);
+          // publish the slot
+          _sequences.set(index, position + 1);
+          return true;
+        }
+      } else if (difference < 0) {
+        // the cancelled occurrence may have been polled meanwhile
+        if (state != _CANCELLED || !_states.compareAndSet(tuple, _OFFERING, _CANCELLED)) {
+          _states.set(tuple, _IDLE);
+          if (state == _CANCELLED)
+            _discard(tuple);
+        }
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Dequeues the next tuple, skipping the cancelled ones, or returns {@code null} if there
+   * are none. Should only be called from the consumer thread.
+   */
+  public Tuple poll() {
+    while (true) {
+      long position = _head;
+      int index = (int) position & _mask;
+      // empty, or the producer which claimed the slot hasn't published it yet
+      if (_sequences.get(index) != position + 1)
+        return null;
+      Tuple tuple = _slots.get(index);
+      _slots.set(index, null);
+      _sequences.set(index, position + _mask + 1);
+      _head = position + 1;
+      if (_live(tuple, position))
+        return tuple;
+    }
+  }
+
+  /**
+   * Internal use. Resolves the {@code tuple} occurrence just dequeued at {@code position}.
+   * Returns {@code true} if it should be executed, i.e., if it's queued at that position,
+   * and {@code false} if it was cancelled or is stale (the tuple was enqueued again).
+   */
+  protected boolean _live(Tuple tuple, long position) {
+    while (true) {
+      int state = _states.get(tuple);
+      if (tuple._position != position)
+        return false;
+      if (state == _QUEUED) {
+        _states.set(tuple, _IDLE);
+        return true;
+      }
+      if (state == _CANCELLED) {
+        if (_states.compareAndSet(tuple, _CANCELLED, _IDLE)) {
+          _discard(tuple);
+          return false;
+        }
+      } else if (state == _OFFERING) {
+        // let the producer know, should it fail to enqueue the tuple again
+        if (_states.compareAndSet(tuple, _OFFERING, _ORPHANED))
+          return false;
+      } else
+        return false;
+    }
+  }
+
+  /**
+   * Dequeues up to {@code target.length} tuples (see {@link #poll()}) into {@code target}.
+   * Returns the number of dequeued tuples. Should only be called from the consumer thread.
+   */
+  public int drain(Tuple[] target) {
+    int count = 0;
+    Tuple tuple;
+    while (count < target.length && (tuple = poll()) != null)
+      target[count++] = tuple;
+    return count;
+  }
+
+  /**
+   * Cancels all the queued tuples holding {@code event}, so that they're skipped by
+   * {@link #poll()}. Should only be called from the consumer thread.
+   */
+  public void cancel(Event event) {
+    long tail = _tail.get();
+    for (long position = _head; position < tail; position++) {
+      int index = (int) position & _mask;
+      if (_sequences.get(index) != position + 1)
+        break;
+      Tuple tuple = _slots.get(index);
+      if (tuple != null && tuple.event() == event && tuple._position == position)
+        _states.compareAndSet(tuple, _QUEUED, _CANCELLED);
+    }
+  }
+
+  /**
+   * Dequeues all the tuples, without executing them (see {@link #_discard(Tuple)}). Should
+   * only be called from the consumer thread.
+   */
+  public void clear() {
+    Tuple tuple;
+    while ((tuple = poll()) != null)
+      _discard(tuple);
+  }
+
+  /**
+   * Internal use. Called with the tuples dequeued without being executed, i.e., the
+   * cancelled (see {@link #cancel(Event)}) and the {@link #clear()}ed ones. Releases the
+   * tuple event, see {@link Event#release()}. May be called from a producer thread.
+   */
+  protected void _discard(Tuple tuple) {
+    if (tuple.event() != null)
+      tuple.event().release();
+  }
+}
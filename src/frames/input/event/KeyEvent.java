@@ -12,6 +12,8 @@ package frames.input.event;
 
 import frames.input.Event;
 
+import java.nio.ByteBuffer;
+
 /**
  * A key-event is an {@link Event} specialization that
  * encapsulates a {@link KeyShortcut}. Key shortcuts may be
@@ -65,6 +67,26 @@ public class KeyEvent extends Event {
     return new KeyEvent(this);
   }
 
+  @Override
+  public KeyEvent set(Event other) {
+    super.set(other);
+    if (other instanceof KeyEvent)
+      this._key = ((KeyEvent) other)._key;
+    return this;
+  }
+
+  @Override
+  protected void _write(ByteBuffer buffer) {
+    super._write(buffer);
+    buffer.putChar(_key);
+  }
+
+  @Override
+  protected void _read(ByteBuffer buffer) {
+    super._read(buffer);
+    _key = buffer.getChar();
+  }
+
   @Override
   public KeyEvent flush() {
     return (KeyEvent) super.flush();
@@ -77,10 +99,10 @@ public class KeyEvent extends Event {
 
   @Override
   public KeyShortcut shortcut() {
-    if (_key == '\0')
-      return new KeyShortcut(modifiers(), id());
-    else
-      return new KeyShortcut(key());
+    if (!(_shortcut instanceof KeyShortcut) || _shortcut.modifiers() != modifiers() || _shortcut.id() != id()
+        || ((KeyShortcut) _shortcut).getKey() != key())
+      _shortcut = _key == '\0' ? new KeyShortcut(modifiers(), id()) : new KeyShortcut(key());
+    return (KeyShortcut) _shortcut;
   }
 
   public char key() {
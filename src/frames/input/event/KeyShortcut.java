@@ -66,4 +66,9 @@ public class KeyShortcut extends Shortcut {
       return getKey() == ((KeyShortcut) other).getKey();
     return false;
   }
+
+  @Override
+  protected long _code() {
+    return super._code() | ((long) _key << 44);
+  }
 }
@@ -12,6 +12,8 @@ package frames.input.event;
 
 import frames.input.Event;
 
+import java.nio.ByteBuffer;
+
 /**
  * Base class of all motion events defined from DOFs (degrees-of-freedom).
  * <p>
@@ -64,6 +66,45 @@ public class MotionEvent extends Event {
     return new MotionEvent(this);
   }
 
+  @Override
+  public MotionEvent set(Event other) {
+    super.set(other);
+    if (other instanceof MotionEvent) {
+      this._delay = ((MotionEvent) other)._delay;
+      this._distance = ((MotionEvent) other)._distance;
+      this._speed = ((MotionEvent) other)._speed;
+      this._relative = ((MotionEvent) other)._relative;
+    }
+    return this;
+  }
+
+  @Override
+  protected void _write(ByteBuffer buffer) {
+    super._write(buffer);
+    buffer.put((byte) (_relative ? 1 : 0));
+    buffer.putInt((int) _delay);
+    buffer.putFloat(_distance);
+    buffer.putFloat(_speed);
+  }
+
+  @Override
+  protected void _read(ByteBuffer buffer) {
+    super._read(buffer);
+    _relative = buffer.get() != 0;
+    _delay = buffer.getInt();
+    _distance = buffer.getFloat();
+    _speed = buffer.getFloat();
+  }
+
+  @Override
+  protected void _reset(int modifiers, int id) {
+    super._reset(modifiers, id);
+    _delay = 0;
+    _distance = 0;
+    _speed = 0;
+    _relative = false;
+  }
+
   @Override
   public MotionEvent flush() {
     return (MotionEvent) super.flush();
@@ -131,6 +172,67 @@ public class MotionEvent extends Event {
       }
   }
 
+  /**
+   * Returns {@code true} if the (subsequent) {@code event} may be {@link #coalesce(MotionEvent)}d
+   * into this one, i.e., if both are relative events of the same type and shortcut, which
+   * are neither {@link #fired()} nor {@link #flushed()}. Returns {@code false} otherwise.
+   */
+  public boolean canCoalesce(MotionEvent event) {
+    if (event == null || event == this || event.getClass() != getClass())
+      return false;
+    if (!isRelative() || !event.isRelative() || fired() || flushed() || event.fired() || event.flushed())
+      return false;
+    return event.id() == id() && event.modifiers() == modifiers();
+  }
+
+  /**
+   * Merges the (subsequent) {@code event} into this one, summing their deltas (together
+   * with their {@link #distance()} and {@link #delay()}) and keeping the latest absolute
+   * dofs and {@link #timestamp()}. Returns {@code false}, leaving this event untouched, if
+   * the event can't be coalesced (see {@link #canCoalesce(MotionEvent)}), and
+   * {@code true} otherwise.
+   *
+   * @see frames.input.Agent#enableCoalescing()
+   */
+  public boolean coalesce(MotionEvent event) {
+    if (!canCoalesce(event))
+      return false;
+    _coalesce(event);
+    _distance += event._distance;
+    _delay += event._delay;
+    if (_delay == 0)
+      _speed = _distance;
+    else
+      _speed = _distance / (float) _delay;
+    _timestamp = event._timestamp;
+    return true;
+  }
+
+  /**
+   * Merges the {@code event} dofs into this event ones. Derived classes defining their own
+   * dofs should override it. Used by {@link #coalesce(MotionEvent)}.
+   */
+  protected void _coalesce(MotionEvent event) {
+  }
+
+  /**
+   * Copies this event {@link #shortcut()}, {@link #timestamp()}, {@link #fired()} and
+   * {@link #flushed()} flags, and relative attributes, into the {@code reduction}. Used by
+   * the lossy reductions (e.g., {@link MotionEvent2#event1(boolean)}) which reuse their
+   * target events.
+   */
+  protected void _reduce(MotionEvent reduction) {
+    reduction._modifiers = _modifiers;
+    reduction._id = _id;
+    reduction._timestamp = _timestamp;
+    reduction._fire = _fire;
+    reduction._flush = _flush;
+    reduction._relative = _relative;
+    reduction._delay = _delay;
+    reduction._speed = _speed;
+    reduction._distance = _distance;
+  }
+
   /**
    * Same as {@code return event1(event, true)}.
    *
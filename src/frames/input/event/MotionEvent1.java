@@ -10,6 +10,10 @@
 
 package frames.input.event;
 
+import frames.input.Event;
+
+import java.nio.ByteBuffer;
+
 /**
  * A {@link frames.input.event.MotionEvent} with one degree of freedom ({@link #x()}).
  */
@@ -101,6 +105,55 @@ public class MotionEvent1 extends MotionEvent {
     return new MotionEvent1(this);
   }
 
+  @Override
+  public MotionEvent1 set(Event other) {
+    super.set(other);
+    if (other instanceof MotionEvent1) {
+      this._x = ((MotionEvent1) other)._x;
+      this._dx = ((MotionEvent1) other)._dx;
+    }
+    return this;
+  }
+
+  @Override
+  protected void _write(ByteBuffer buffer) {
+    super._write(buffer);
+    buffer.putFloat(_x);
+    buffer.putFloat(_dx);
+  }
+
+  @Override
+  protected void _read(ByteBuffer buffer) {
+    super._read(buffer);
+    _x = buffer.getFloat();
+    _dx = buffer.getFloat();
+  }
+
+  /**
+   * Reinitializes this event as an absolute event from the given dof and modifiers. Same
+   * as {@link #MotionEvent1(float, int, int)} but without allocation, see
+   * {@link frames.input.EventPool}.
+   */
+  public MotionEvent1 set(float dx, int modifiers, int id) {
+    _reset(modifiers, id);
+    this._x = 0;
+    this._dx = dx;
+    return this;
+  }
+
+  /**
+   * Reinitializes this event as a relative event from the given previous event, dof and
+   * modifiers. Same as {@link #MotionEvent1(MotionEvent, float, int, int)} but without
+   * allocation, see {@link frames.input.EventPool}.
+   */
+  public MotionEvent1 set(MotionEvent previous, float x, int modifiers, int id) {
+    _reset(modifiers, id);
+    this._x = x;
+    this._dx = 0;
+    _setPrevious(previous);
+    return this;
+  }
+
   @Override
   public MotionEvent1 flush() {
     return (MotionEvent1) super.flush();
@@ -111,6 +164,13 @@ public class MotionEvent1 extends MotionEvent {
     return (MotionEvent1) super.fire();
   }
 
+  @Override
+  protected void _coalesce(MotionEvent event) {
+    MotionEvent1 other = (MotionEvent1) event;
+    this._x = other._x;
+    this._dx += other._dx;
+  }
+
   @Override
   protected void _setPrevious(MotionEvent previous) {
     _relative = true;
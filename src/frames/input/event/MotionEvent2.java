@@ -10,6 +10,10 @@
 
 package frames.input.event;
 
+import frames.input.Event;
+
+import java.nio.ByteBuffer;
+
 /**
  * A {@link frames.input.event.MotionEvent} with two degrees-of-freedom ({@link #x()}
  * and {@link #y()}).
@@ -17,6 +21,8 @@ package frames.input.event;
 public class MotionEvent2 extends MotionEvent {
   protected float _x, _dx;
   protected float _y, _dy;
+  // reused by event1()
+  protected MotionEvent1 _event1;
 
   /**
    * Construct an absolute event from the given dof's and modifiers.
@@ -113,6 +119,65 @@ public class MotionEvent2 extends MotionEvent {
     return new MotionEvent2(this);
   }
 
+  @Override
+  public MotionEvent2 set(Event other) {
+    super.set(other);
+    if (other instanceof MotionEvent2) {
+      this._x = ((MotionEvent2) other)._x;
+      this._dx = ((MotionEvent2) other)._dx;
+      this._y = ((MotionEvent2) other)._y;
+      this._dy = ((MotionEvent2) other)._dy;
+    }
+    return this;
+  }
+
+  @Override
+  protected void _write(ByteBuffer buffer) {
+    super._write(buffer);
+    buffer.putFloat(_x);
+    buffer.putFloat(_dx);
+    buffer.putFloat(_y);
+    buffer.putFloat(_dy);
+  }
+
+  @Override
+  protected void _read(ByteBuffer buffer) {
+    super._read(buffer);
+    _x = buffer.getFloat();
+    _dx = buffer.getFloat();
+    _y = buffer.getFloat();
+    _dy = buffer.getFloat();
+  }
+
+  /**
+   * Reinitializes this event as an absolute event from the given dof's and modifiers.
+   * Same as {@link #MotionEvent2(float, float, int, int)} but without allocation, see
+   * {@link frames.input.EventPool}.
+   */
+  public MotionEvent2 set(float dx, float dy, int modifiers, int id) {
+    _reset(modifiers, id);
+    this._x = 0;
+    this._dx = dx;
+    this._y = 0;
+    this._dy = dy;
+    return this;
+  }
+
+  /**
+   * Reinitializes this event as a relative event from the given previous event, dof's and
+   * modifiers. Same as {@link #MotionEvent2(MotionEvent, float, float, int, int)} but
+   * without allocation, see {@link frames.input.EventPool}.
+   */
+  public MotionEvent2 set(MotionEvent previous, float x, float y, int modifiers, int id) {
+    _reset(modifiers, id);
+    this._x = x;
+    this._dx = 0;
+    this._y = y;
+    this._dy = 0;
+    _setPrevious(previous);
+    return this;
+  }
+
   @Override
   public MotionEvent2 flush() {
     return (MotionEvent2) super.flush();
@@ -123,6 +188,15 @@ public class MotionEvent2 extends MotionEvent {
     return (MotionEvent2) super.fire();
   }
 
+  @Override
+  protected void _coalesce(MotionEvent event) {
+    MotionEvent2 other = (MotionEvent2) event;
+    this._x = other._x;
+    this._dx += other._dx;
+    this._y = other._y;
+    this._dy += other._dy;
+  }
+
   @Override
   protected void _setPrevious(MotionEvent previous) {
     _relative = true;
@@ -199,34 +273,18 @@ public class MotionEvent2 extends MotionEvent {
 
   /**
    * Reduces the event to a {@link MotionEvent1} (lossy reduction).
+   * <p>
+   * The returned event is owned by this one and reused by subsequent calls, so it should
+   * be copied (see {@link MotionEvent1#get()}) to be kept.
    *
    * @param fromX if true keeps dof-1, else keeps dof-2
    */
   public MotionEvent1 event1(boolean fromX) {
-    MotionEvent1 pe1;
-    MotionEvent1 e1;
-    if (fromX) {
-      if (isRelative()) {
-        pe1 = new MotionEvent1(null, previousX(), modifiers(), id());
-        e1 = new MotionEvent1(pe1, x(), modifiers(), id());
-      } else {
-        e1 = new MotionEvent1(dx(), modifiers(), id());
-      }
-    } else {
-      if (isRelative()) {
-        pe1 = new MotionEvent1(null, previousY(), modifiers(), id());
-        e1 = new MotionEvent1(pe1, y(), modifiers(), id());
-      } else {
-        e1 = new MotionEvent1(dy(), modifiers(), id());
-      }
-    }
-    e1._delay = this.delay();
-    e1._speed = this.speed();
-    e1._distance = this.distance();
-    if (fired())
-      return e1.fire();
-    else if (flushed())
-      return e1.flush();
-    return e1;
+    if (_event1 == null)
+      _event1 = new MotionEvent1(0);
+    _reduce(_event1);
+    _event1._x = isRelative() ? fromX ? x() : y() : 0;
+    _event1._dx = fromX ? dx() : dy();
+    return _event1;
   }
 }
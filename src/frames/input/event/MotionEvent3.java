@@ -10,6 +10,10 @@
 
 package frames.input.event;
 
+import frames.input.Event;
+
+import java.nio.ByteBuffer;
+
 /**
  * A {@link frames.input.event.MotionEvent} with three degrees-of-freedom ( {@link #x()},
  * {@link #y()} and {@link #z()} ).
@@ -18,6 +22,8 @@ public class MotionEvent3 extends MotionEvent {
   protected float _x, _dx;
   protected float _y, _dy;
   protected float _z, _dz;
+  // reused by event2()
+  protected MotionEvent2 _event2;
 
   /**
    * Construct an absolute event from the given dof's and modifiers.
@@ -116,7 +122,7 @@ public class MotionEvent3 extends MotionEvent {
     this._y = other._y;
     this._dy = other._dy;
     this._z = other._z;
-    this._dz = other._z;
+    this._dz = other._dz;
   }
 
   @Override
@@ -124,6 +130,75 @@ public class MotionEvent3 extends MotionEvent {
     return new MotionEvent3(this);
   }
 
+  @Override
+  public MotionEvent3 set(Event other) {
+    super.set(other);
+    if (other instanceof MotionEvent3) {
+      this._x = ((MotionEvent3) other)._x;
+      this._dx = ((MotionEvent3) other)._dx;
+      this._y = ((MotionEvent3) other)._y;
+      this._dy = ((MotionEvent3) other)._dy;
+      this._z = ((MotionEvent3) other)._z;
+      this._dz = ((MotionEvent3) other)._dz;
+    }
+    return this;
+  }
+
+  @Override
+  protected void _write(ByteBuffer buffer) {
+    super._write(buffer);
+    buffer.putFloat(_x);
+    buffer.putFloat(_dx);
+    buffer.putFloat(_y);
+    buffer.putFloat(_dy);
+    buffer.putFloat(_z);
+    buffer.putFloat(_dz);
+  }
+
+  @Override
+  protected void _read(ByteBuffer buffer) {
+    super._read(buffer);
+    _x = buffer.getFloat();
+    _dx = buffer.getFloat();
+    _y = buffer.getFloat();
+    _dy = buffer.getFloat();
+    _z = buffer.getFloat();
+    _dz = buffer.getFloat();
+  }
+
+  /**
+   * Reinitializes this event as an absolute event from the given dof's and modifiers.
+   * Same as {@link #MotionEvent3(float, float, float, int, int)} but without allocation,
+   * see {@link frames.input.EventPool}.
+   */
+  public MotionEvent3 set(float dx, float dy, float dz, int modifiers, int id) {
+    _reset(modifiers, id);
+    this._x = 0;
+    this._dx = dx;
+    this._y = 0;
+    this._dy = dy;
+    this._z = 0;
+    this._dz = dz;
+    return this;
+  }
+
+  /**
+   * Reinitializes this event as a relative event from the given previous event, dof's and
+   * modifiers. Same as {@link #MotionEvent3(MotionEvent, float, float, float, int, int)}
+   * but without allocation, see {@link frames.input.EventPool}.
+   */
+  public MotionEvent3 set(MotionEvent previous, float x, float y, float z, int modifiers, int id) {
+    _reset(modifiers, id);
+    this._x = x;
+    this._dx = 0;
+    this._y = y;
+    this._dy = 0;
+    this._z = z;
+    this._dz = 0;
+    _setPrevious(previous);
+    return this;
+  }
+
   @Override
   public MotionEvent3 flush() {
     return (MotionEvent3) super.flush();
@@ -134,6 +209,17 @@ public class MotionEvent3 extends MotionEvent {
     return (MotionEvent3) super.fire();
   }
 
+  @Override
+  protected void _coalesce(MotionEvent event) {
+    MotionEvent3 other = (MotionEvent3) event;
+    this._x = other._x;
+    this._dx += other._dx;
+    this._y = other._y;
+    this._dy += other._dy;
+    this._z = other._z;
+    this._dz += other._dz;
+  }
+
   @Override
   protected void _setPrevious(MotionEvent previous) {
     _relative = true;
@@ -225,23 +311,18 @@ public class MotionEvent3 extends MotionEvent {
   /**
    * Reduces the event to a {@link MotionEvent2} (lossy reduction). Keeps
    * dof-1 and dof-2 and discards dof-3.
+   * <p>
+   * The returned event is owned by this one and reused by subsequent calls, so it should
+   * be copied (see {@link MotionEvent2#get()}) to be kept.
    */
   public MotionEvent2 event2() {
-    MotionEvent2 pe2;
-    MotionEvent2 e2;
-    if (isRelative()) {
-      pe2 = new MotionEvent2(null, previousX(), previousY(), modifiers(), id());
-      e2 = new MotionEvent2(pe2, x(), y(), modifiers(), id());
-    } else {
-      e2 = new MotionEvent2(dx(), dy(), modifiers(), id());
-    }
-    e2._delay = this.delay();
-    e2._speed = this.speed();
-    e2._distance = this.distance();
-    if (fired())
-      return e2.fire();
-    else if (flushed())
-      return e2.flush();
-    return e2;
+    if (_event2 == null)
+      _event2 = new MotionEvent2(0, 0);
+    _reduce(_event2);
+    _event2._x = isRelative() ? x() : 0;
+    _event2._dx = dx();
+    _event2._y = isRelative() ? y() : 0;
+    _event2._dy = dy();
+    return _event2;
   }
 }
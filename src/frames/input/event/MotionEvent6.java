@@ -10,6 +10,10 @@
 
 package frames.input.event;
 
+import frames.input.Event;
+
+import java.nio.ByteBuffer;
+
 /**
  * A {@link frames.input.event.MotionEvent} with six degrees-of-freedom ( {@link #x()},
  * {@link #y()}, {@link #z()} , {@link #rx()}, {@link #ry()} and {@link #rz()}).
@@ -22,6 +26,8 @@ public class MotionEvent6 extends MotionEvent {
   protected float _rx, _drx;
   protected float _ry, _dry;
   protected float _rz, _drz;
+  // reused by event3()
+  protected MotionEvent3 _event3;
 
   /**
    * Construct an absolute event from the given dof's and modifiers.
@@ -145,7 +151,7 @@ public class MotionEvent6 extends MotionEvent {
     this._y = other._y;
     this._dy = other._dy;
     this._z = other._z;
-    this._dz = other._z;
+    this._dz = other._dz;
     this._rx = other._rx;
     this._drx = other._drx;
     this._ry = other._ry;
@@ -159,6 +165,101 @@ public class MotionEvent6 extends MotionEvent {
     return new MotionEvent6(this);
   }
 
+  @Override
+  public MotionEvent6 set(Event other) {
+    super.set(other);
+    if (other instanceof MotionEvent6) {
+      this._x = ((MotionEvent6) other)._x;
+      this._dx = ((MotionEvent6) other)._dx;
+      this._y = ((MotionEvent6) other)._y;
+      this._dy = ((MotionEvent6) other)._dy;
+      this._z = ((MotionEvent6) other)._z;
+      this._dz = ((MotionEvent6) other)._dz;
+      this._rx = ((MotionEvent6) other)._rx;
+      this._drx = ((MotionEvent6) other)._drx;
+      this._ry = ((MotionEvent6) other)._ry;
+      this._dry = ((MotionEvent6) other)._dry;
+      this._rz = ((MotionEvent6) other)._rz;
+      this._drz = ((MotionEvent6) other)._drz;
+    }
+    return this;
+  }
+
+  @Override
+  protected void _write(ByteBuffer buffer) {
+    super._write(buffer);
+    buffer.putFloat(_x);
+    buffer.putFloat(_dx);
+    buffer.putFloat(_y);
+    buffer.putFloat(_dy);
+    buffer.putFloat(_z);
+    buffer.putFloat(_dz);
+    buffer.putFloat(_rx);
+    buffer.putFloat(_drx);
+    buffer.putFloat(_ry);
+    buffer.putFloat(_dry);
+    buffer.putFloat(_rz);
+    buffer.putFloat(_drz);
+  }
+
+  @Override
+  protected void _read(ByteBuffer buffer) {
+    super._read(buffer);
+    _x = buffer.getFloat();
+    _dx = buffer.getFloat();
+    _y = buffer.getFloat();
+    _dy = buffer.getFloat();
+    _z = buffer.getFloat();
+    _dz = buffer.getFloat();
+    _rx = buffer.getFloat();
+    _drx = buffer.getFloat();
+    _ry = buffer.getFloat();
+    _dry = buffer.getFloat();
+    _rz = buffer.getFloat();
+    _drz = buffer.getFloat();
+  }
+
+  /**
+   * Reinitializes this event as an absolute event from the given dof's and modifiers.
+   * Same as {@link #MotionEvent6(float, float, float, float, float, float, int, int)} but
+   * without allocation, see {@link frames.input.EventPool}.
+   */
+  public MotionEvent6 set(float dx, float dy, float dz, float drx, float dry, float drz, int modifiers, int id) {
+    _reset(modifiers, id);
+    _set(0, dx, 0, dy, 0, dz, 0, drx, 0, dry, 0, drz);
+    return this;
+  }
+
+  /**
+   * Reinitializes this event as a relative event from the given previous event, dof's and
+   * modifiers. Same as
+   * {@link #MotionEvent6(MotionEvent, float, float, float, float, float, float, int, int)}
+   * but without allocation, see {@link frames.input.EventPool}.
+   */
+  public MotionEvent6 set(MotionEvent previous, float x, float y, float z, float rx, float ry, float rz, int modifiers,
+                          int id) {
+    _reset(modifiers, id);
+    _set(x, 0, y, 0, z, 0, rx, 0, ry, 0, rz, 0);
+    _setPrevious(previous);
+    return this;
+  }
+
+  protected void _set(float x, float dx, float y, float dy, float z, float dz, float rx, float drx, float ry, float dry,
+                      float rz, float drz) {
+    this._x = x;
+    this._dx = dx;
+    this._y = y;
+    this._dy = dy;
+    this._z = z;
+    this._dz = dz;
+    this._rx = rx;
+    this._drx = drx;
+    this._ry = ry;
+    this._dry = dry;
+    this._rz = rz;
+    this._drz = drz;
+  }
+
   @Override
   public MotionEvent6 flush() {
     return (MotionEvent6) super.flush();
@@ -169,6 +270,23 @@ public class MotionEvent6 extends MotionEvent {
     return (MotionEvent6) super.fire();
   }
 
+  @Override
+  protected void _coalesce(MotionEvent event) {
+    MotionEvent6 other = (MotionEvent6) event;
+    this._x = other._x;
+    this._dx += other._dx;
+    this._y = other._y;
+    this._dy += other._dy;
+    this._z = other._z;
+    this._dz += other._dz;
+    this._rx = other._rx;
+    this._drx += other._drx;
+    this._ry = other._ry;
+    this._dry += other._dry;
+    this._rz = other._rz;
+    this._drz += other._drz;
+  }
+
   @Override
   protected void _setPrevious(MotionEvent previous) {
     _relative = true;
@@ -357,33 +475,22 @@ public class MotionEvent6 extends MotionEvent {
   /**
    * Reduces the event to a {@link MotionEvent3} (lossy reduction).
    *
+   * <p>
+   * The returned event is owned by this one and reused by subsequent calls, so it should
+   * be copied (see {@link MotionEvent3#get()}) to be kept.
+   *
    * @param fromTranslation if true keeps dof1, dof2 and dof3; otherwise keeps dof4, dof4 and dof6.
    */
   public MotionEvent3 event3(boolean fromTranslation) {
-    MotionEvent3 pe3;
-    MotionEvent3 e3;
-    if (isRelative()) {
-      if (fromTranslation) {
-        pe3 = new MotionEvent3(null, previousX(), previousY(), previousZ(), modifiers(), id());
-        e3 = new MotionEvent3(pe3, x(), y(), z(), modifiers(), id());
-      } else {
-        pe3 = new MotionEvent3(null, previousRX(), previousRY(), previousRZ(), modifiers(), id());
-        e3 = new MotionEvent3(pe3, rx(), ry(), rz(), modifiers(), id());
-      }
-    } else {
-      if (fromTranslation) {
-        e3 = new MotionEvent3(dx(), dy(), dz(), modifiers(), id());
-      } else {
-        e3 = new MotionEvent3(drx(), dry(), drz(), modifiers(), id());
-      }
-    }
-    e3._delay = this.delay();
-    e3._speed = this.speed();
-    e3._distance = this.distance();
-    if (fired())
-      return e3.fire();
-    else if (flushed())
-      return e3.flush();
-    return e3;
+    if (_event3 == null)
+      _event3 = new MotionEvent3(0, 0, 0);
+    _reduce(_event3);
+    _event3._x = isRelative() ? fromTranslation ? x() : rx() : 0;
+    _event3._dx = fromTranslation ? dx() : drx();
+    _event3._y = isRelative() ? fromTranslation ? y() : ry() : 0;
+    _event3._dy = fromTranslation ? dy() : dry();
+    _event3._z = isRelative() ? fromTranslation ? z() : rz() : 0;
+    _event3._dz = fromTranslation ? dz() : drz();
+    return _event3;
   }
 }
@@ -12,6 +12,8 @@ package frames.input.event;
 
 import frames.input.Event;
 
+import java.nio.ByteBuffer;
+
 /**
  * A tap event encapsulates a {@link TapShortcut} and it's defined
  * by the number of taps. A tap event holds the position where the event occurred (
@@ -82,6 +84,46 @@ public class TapEvent extends Event {
     return new TapEvent(this);
   }
 
+  @Override
+  public TapEvent set(Event other) {
+    super.set(other);
+    if (other instanceof TapEvent) {
+      this._x = ((TapEvent) other)._x;
+      this._y = ((TapEvent) other)._y;
+      this._count = ((TapEvent) other)._count;
+    }
+    return this;
+  }
+
+  @Override
+  protected void _write(ByteBuffer buffer) {
+    super._write(buffer);
+    buffer.putFloat(_x);
+    buffer.putFloat(_y);
+    buffer.putInt(_count);
+  }
+
+  @Override
+  protected void _read(ByteBuffer buffer) {
+    super._read(buffer);
+    _x = buffer.getFloat();
+    _y = buffer.getFloat();
+    _count = buffer.getInt();
+  }
+
+  /**
+   * Reinitializes this event from the given coordinates, modifiers, id and count. Same as
+   * {@link #TapEvent(float, float, int, int, int)} but without allocation, see
+   * {@link frames.input.EventPool}.
+   */
+  public TapEvent set(float x, float y, int modifiers, int id, int count) {
+    _reset(modifiers, id);
+    this._x = x;
+    this._y = y;
+    this._count = count;
+    return this;
+  }
+
   @Override
   public TapEvent flush() {
     return (TapEvent) super.flush();
@@ -94,7 +136,10 @@ public class TapEvent extends Event {
 
   @Override
   public TapShortcut shortcut() {
-    return new TapShortcut(modifiers(), id(), count());
+    if (!(_shortcut instanceof TapShortcut) || _shortcut.modifiers() != modifiers() || _shortcut.id() != id()
+        || ((TapShortcut) _shortcut).count() != count())
+      _shortcut = new TapShortcut(modifiers(), id(), count());
+    return (TapShortcut) _shortcut;
   }
 
   /**
@@ -73,4 +73,9 @@ public class TapShortcut extends Shortcut {
       return count() == ((TapShortcut) other).count();
     return false;
   }
+
+  @Override
+  protected long _code() {
+    return super._code() | ((long) (_count & 0xFFFF) << 44);
+  }
 }
@@ -13,6 +13,8 @@ package frames.primitives;
 import frames.primitives.constraint.Constraint;
 import frames.timing.TimingHandler;
 
+import java.nio.FloatBuffer;
+
 /**
  * A frame is a 2D or 3D coordinate system, represented by a {@link #position()}, an
  * {@link #orientation()} and {@link #magnitude()}. The order of these transformations is
@@ -117,6 +119,12 @@ public class Frame {
   protected Frame _reference;
   protected Constraint _constraint;
   protected long _lastUpdate;
+  // world transformation cache
+  protected boolean _cache;
+  protected boolean _dirty = true;
+  protected Vector _position;
+  protected Quaternion _orientation;
+  protected float _magnitude;
 
   /**
    * Same as {@code this(null, new Vector(), new Quaternion(), 1)}.
@@ -190,6 +198,7 @@ public class Frame {
     _scaling = other.scaling();
     _reference = other.reference();
     _constraint = other.constraint();
+    _cache = other.isWorldTransformationCached();
   }
 
   /**
@@ -256,6 +265,7 @@ public class Frame {
    */
   protected void _modified() {
     _lastUpdate = TimingHandler.frameCount;
+    _dirty = true;
   }
 
   /**
@@ -265,6 +275,79 @@ public class Frame {
     return _lastUpdate;
   }
 
+  // WORLD TRANSFORMATION CACHE
+
+  /**
+   * Returns {@code true} if the frame {@link #position()}, {@link #orientation()} and
+   * {@link #magnitude()} are being cached, and {@code false} otherwise (default).
+   *
+   * @see #cacheWorldTransformation(boolean)
+   */
+  public boolean isWorldTransformationCached() {
+    return _cache;
+  }
+
+  /**
+   * Enables or disables caching of the frame {@link #position()}, {@link #orientation()}
+   * and {@link #magnitude()} (and hence of the {@link #worldMatrix()}) according to
+   * {@code cache}.
+   * <p>
+   * When enabled, the world transformation is only recomputed when the frame has been
+   * modified since the last query, so that repeated queries don't need to traverse the
+   * {@link #reference()} hierarchy. The cache is invalidated each time the frame is
+   * modified (see {@link #lastUpdate()}). Nodes propagate such invalidation to all their
+   * descendants.
+   *
+   * <b>Attention:</b> A plain frame doesn't keep track of its descendants. Hence, the cache of
+   * a frame whose {@link #reference()} hierarchy is made of plain frames is not invalidated
+   * when one of its ancestors is modified. Also note that modifying the {@link #translation()}
+   * or {@link #rotation()} objects directly (instead of using the frame setters) bypasses
+   * the cache invalidation.
+   *
+   * @see #isWorldTransformationCached()
+   */
+  public void cacheWorldTransformation(boolean cache) {
+    _cache = cache;
+    _dirty = true;
+  }
+
+  /**
+   * Internal use. Recomputes the cached world transformation if the frame has been
+   * modified since it was last computed.
+   */
+  protected void _updateWorldTransformation() {
+    if (!_dirty)
+      return;
+    if (_position == null) {
+      _position = new Vector();
+      _orientation = new Quaternion();
+    }
+    Frame reference = reference();
+    if (reference == null) {
+      _position.set(translation());
+      _orientation.set(rotation());
+      _magnitude = scaling();
+    } else {
+      Vector position;
+      Quaternion orientation;
+      float magnitude;
+      if (reference.isWorldTransformationCached()) {
+        reference._updateWorldTransformation();
+        position = reference._position;
+        orientation = reference._orientation;
+        magnitude = reference._magnitude;
+      } else {
+        position = reference.position();
+        orientation = reference.orientation();
+        magnitude = reference.magnitude();
+      }
+      _position.set(Vector.add(orientation.rotate(Vector.multiply(translation(), magnitude)), position));
+      _orientation.set(Quaternion.compose(orientation, rotation()));
+      _magnitude = magnitude * scaling();
+    }
+    _dirty = false;
+  }
+
   // SYNC
 
   /**
@@ -477,7 +560,23 @@ public class Frame {
    * @see #translation()
    */
   public Vector position() {
-    return inverseCoordinatesOf(new Vector(0, 0, 0));
+    return position(null);
+  }
+
+  /**
+   * Same as {@link #position()}, but storing the result in {@code target} (if null, a new
+   * vector will be created).
+   */
+  public Vector position(Vector target) {
+    if (target == null)
+      target = new Vector();
+    if (isWorldTransformationCached()) {
+      _updateWorldTransformation();
+      target.set(_position);
+      return target;
+    }
+    target.set(0, 0, 0);
+    return inverseCoordinatesOf(target, target);
   }
 
   /**
@@ -615,6 +714,10 @@ public class Frame {
    * @see #rotation()
    */
   public Quaternion orientation() {
+    if (isWorldTransformationCached()) {
+      _updateWorldTransformation();
+      return _orientation.get();
+    }
     Quaternion quaternion = rotation().get();
     Frame reference = reference();
     while (reference != null) {
@@ -694,6 +797,10 @@ public class Frame {
    * @see #translation()
    */
   public float magnitude() {
+    if (isWorldTransformationCached()) {
+      _updateWorldTransformation();
+      return _magnitude;
+    }
     if (reference() != null)
       return reference().magnitude() * scaling();
     else
@@ -1208,6 +1315,7 @@ public class Frame {
     Vector z = new Vector(r[0][2], r[1][2], r[2][2]);
 
     rotation().fromRotatedBasis(x, y, z);
+    _modified();
   }
 
   /**
@@ -1299,14 +1407,32 @@ public class Frame {
    * coordinate system is {@code src} (converts from {@code from} to this frame).
    * <p>
    * {@link #coordinatesOfIn(Vector, Frame)} performs the inverse transformation.
+   *
+   * @see #coordinatesOfFrom(Vector, Frame, Vector)
    */
   public Vector coordinatesOfFrom(Vector src, Frame from) {
-    if (this == from)
-      return src;
-    else if (reference() != null)
-      return localCoordinatesOf(reference().coordinatesOfFrom(src, from));
+    return coordinatesOfFrom(src, from, null);
+  }
+
+  /**
+   * Same as {@link #coordinatesOfFrom(Vector, Frame)}, but writes the result into
+   * {@code target} (if null, a new vector will be created) instead of allocating
+   * intermediate vectors. Safe to be called with {@code target == src}.
+   *
+   * @return the target vector
+   */
+  public Vector coordinatesOfFrom(Vector src, Frame from, Vector target) {
+    if (this == from) {
+      if (target == null)
+        return src.get();
+      target.set(src);
+      return target;
+    }
+    if (reference() != null)
+      target = reference().coordinatesOfFrom(src, from, target);
     else
-      return localCoordinatesOf(from.inverseCoordinatesOf(src));
+      target = from.inverseCoordinatesOf(src, target);
+    return localCoordinatesOf(target, target);
   }
 
   /**
@@ -1314,22 +1440,38 @@ public class Frame {
    * coordinate system is {@code src} (converts from this frame to {@code in}).
    * <p>
    * {@link #coordinatesOfFrom(Vector, Frame)} performs the inverse transformation.
+   *
+   * @see #coordinatesOfIn(Vector, Frame, Vector)
    */
   public Vector coordinatesOfIn(Vector vector, Frame in) {
+    return coordinatesOfIn(vector, in, null);
+  }
+
+  /**
+   * Same as {@link #coordinatesOfIn(Vector, Frame)}, but writes the result into
+   * {@code target} (if null, a new vector will be created) instead of allocating
+   * intermediate vectors. Safe to be called with {@code target == vector}.
+   *
+   * @return the target vector
+   */
+  public Vector coordinatesOfIn(Vector vector, Frame in, Vector target) {
+    if (target == null)
+      target = vector.get();
+    else
+      target.set(vector);
     Frame fr = this;
-    Vector res = vector;
     while ((fr != null) && (fr != in)) {
-      res = fr.localInverseCoordinatesOf(res);
+      fr.localInverseCoordinatesOf(target, target);
       fr = fr.reference();
     }
 
     if (fr != in)
-      // in was not found in the branch of this, res is now expressed in the
+      // in was not found in the branch of this, target is now expressed in the
       // world
       // coordinate system. Simply convert to in coordinate system.
-      res = in.coordinatesOf(res);
+      in.coordinatesOf(target, target);
 
-    return res;
+    return target;
   }
 
   /**
@@ -1340,9 +1482,22 @@ public class Frame {
    * {@link #localInverseCoordinatesOf(Vector)} performs the inverse conversion.
    *
    * @see #localTransformOf(Vector)
+   * @see #localCoordinatesOf(Vector, Vector)
    */
   public Vector localCoordinatesOf(Vector vector) {
-    return Vector.divide(rotation().inverseRotate(Vector.subtract(vector, translation())), scaling());
+    return localCoordinatesOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #localCoordinatesOf(Vector)}, but writes the result into {@code target}
+   * (if null, a new vector will be created). Safe to be called with {@code target == vector}.
+   *
+   * @return the target vector
+   */
+  public Vector localCoordinatesOf(Vector vector, Vector target) {
+    target = Vector.subtract(vector, translation(), target);
+    rotation().inverseRotate(target, target);
+    return Vector.divide(target, scaling(), target);
   }
 
   /**
@@ -1351,12 +1506,37 @@ public class Frame {
    * <p>
    * {@link #inverseCoordinatesOf(Vector)} performs the inverse conversion.
    * {@link #transformOf(Vector)} converts vectors instead of coordinates.
+   *
+   * @see #coordinatesOf(Vector, Vector)
    */
   public Vector coordinatesOf(Vector vector) {
+    return coordinatesOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #coordinatesOf(Vector)}, but writes the result into {@code target}
+   * (if null, a new vector will be created) instead of allocating intermediate vectors.
+   * Safe to be called with {@code target == vector}.
+   * <p>
+   * If {@link #isWorldTransformationCached()} the cached world transformation is used,
+   * and the {@link #reference()} hierarchy is not traversed.
+   *
+   * @return the target vector
+   */
+  public Vector coordinatesOf(Vector vector, Vector target) {
+    if (isWorldTransformationCached()) {
+      _updateWorldTransformation();
+      target = Vector.subtract(vector, _position, target);
+      _orientation.inverseRotate(target, target);
+      return Vector.divide(target, _magnitude, target);
+    }
     if (reference() != null)
-      return localCoordinatesOf(reference().coordinatesOf(vector));
+      target = reference().coordinatesOf(vector, target);
+    else if (target == null)
+      target = vector.get();
     else
-      return localCoordinatesOf(vector);
+      target.set(vector);
+    return localCoordinatesOf(target, target);
   }
 
   // VECTOR CONVERSION
@@ -1366,14 +1546,32 @@ public class Frame {
    * coordinate system is {@code src} (converts vectors from {@code from} to this frame).
    * <p>
    * {@link #transformOfIn(Vector, Frame)} performs the inverse transformation.
+   *
+   * @see #transformOfFrom(Vector, Frame, Vector)
    */
   public Vector transformOfFrom(Vector vector, Frame from) {
-    if (this == from)
-      return vector;
-    else if (reference() != null)
-      return localTransformOf(reference().transformOfFrom(vector, from));
+    return transformOfFrom(vector, from, null);
+  }
+
+  /**
+   * Same as {@link #transformOfFrom(Vector, Frame)}, but writes the result into
+   * {@code target} (if null, a new vector will be created) instead of allocating
+   * intermediate vectors. Safe to be called with {@code target == vector}.
+   *
+   * @return the target vector
+   */
+  public Vector transformOfFrom(Vector vector, Frame from, Vector target) {
+    if (this == from) {
+      if (target == null)
+        return vector.get();
+      target.set(vector);
+      return target;
+    }
+    if (reference() != null)
+      target = reference().transformOfFrom(vector, from, target);
     else
-      return localTransformOf(from.inverseTransformOf(vector));
+      target = from.inverseTransformOf(vector, target);
+    return localTransformOf(target, target);
   }
 
   /**
@@ -1381,21 +1579,37 @@ public class Frame {
    * coordinate system is {@code src} (converts vectors from this frame to {@code in}).
    * <p>
    * {@link #transformOfFrom(Vector, Frame)} performs the inverse transformation.
+   *
+   * @see #transformOfIn(Vector, Frame, Vector)
    */
   public Vector transformOfIn(Vector vector, Frame in) {
+    return transformOfIn(vector, in, null);
+  }
+
+  /**
+   * Same as {@link #transformOfIn(Vector, Frame)}, but writes the result into
+   * {@code target} (if null, a new vector will be created) instead of allocating
+   * intermediate vectors. Safe to be called with {@code target == vector}.
+   *
+   * @return the target vector
+   */
+  public Vector transformOfIn(Vector vector, Frame in, Vector target) {
+    if (target == null)
+      target = vector.get();
+    else
+      target.set(vector);
     Frame fr = this;
-    Vector res = vector;
     while ((fr != null) && (fr != in)) {
-      res = fr.localInverseTransformOf(res);
+      fr.localInverseTransformOf(target, target);
       fr = fr.reference();
     }
 
     if (fr != in)
-      // in was not found in the branch of this, res is now expressed in
+      // in was not found in the branch of this, target is now expressed in
       // the world coordinate system. Simply convert to in coordinate system.
-      res = in.transformOf(res);
+      in.transformOf(target, target);
 
-    return res;
+    return target;
   }
 
   /**
@@ -1405,9 +1619,23 @@ public class Frame {
    * {@link #localCoordinatesOf(Vector)} performs the inverse conversion.
    *
    * @see #localInverseTransformOf(Vector)
+   * @see #localInverseCoordinatesOf(Vector, Vector)
    */
   public Vector localInverseCoordinatesOf(Vector vector) {
-    return Vector.add(rotation().rotate(Vector.multiply(vector, scaling())), translation());
+    return localInverseCoordinatesOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #localInverseCoordinatesOf(Vector)}, but writes the result into
+   * {@code target} (if null, a new vector will be created). Safe to be called with
+   * {@code target == vector}.
+   *
+   * @return the target vector
+   */
+  public Vector localInverseCoordinatesOf(Vector vector, Vector target) {
+    target = Vector.multiply(vector, scaling(), target);
+    rotation().rotate(target, target);
+    return Vector.add(target, translation(), target);
   }
 
   /**
@@ -1416,15 +1644,37 @@ public class Frame {
    * <p>
    * {@link #coordinatesOf(Vector)} performs the inverse conversion. Use
    * {@link #inverseTransformOf(Vector)} to transform vectors instead of coordinates.
+   *
+   * @see #inverseCoordinatesOf(Vector, Vector)
    */
   public Vector inverseCoordinatesOf(Vector vector) {
-    Frame fr = this;
-    Vector res = vector;
+    return inverseCoordinatesOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #inverseCoordinatesOf(Vector)}, but writes the result into {@code target}
+   * (if null, a new vector will be created) instead of allocating intermediate vectors.
+   * Safe to be called with {@code target == vector}.
+   * <p>
+   * If {@link #isWorldTransformationCached()} the cached world transformation is used,
+   * and the {@link #reference()} hierarchy is not traversed.
+   *
+   * @return the target vector
+   */
+  public Vector inverseCoordinatesOf(Vector vector, Vector target) {
+    if (isWorldTransformationCached()) {
+      _updateWorldTransformation();
+      target = Vector.multiply(vector, _magnitude, target);
+      _orientation.rotate(target, target);
+      return Vector.add(target, _position, target);
+    }
+    target = localInverseCoordinatesOf(vector, target);
+    Frame fr = reference();
     while (fr != null) {
-      res = fr.localInverseCoordinatesOf(res);
+      fr.localInverseCoordinatesOf(target, target);
       fr = fr.reference();
     }
-    return res;
+    return target;
   }
 
   /**
@@ -1434,12 +1684,36 @@ public class Frame {
    * {@link #inverseTransformOf(Vector)} performs the inverse transformation.
    * {@link #coordinatesOf(Vector)} converts coordinates instead of vectors (here only the
    * rotational part of the transformation is taken into account).
+   *
+   * @see #transformOf(Vector, Vector)
    */
   public Vector transformOf(Vector vector) {
+    return transformOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #transformOf(Vector)}, but writes the result into {@code target}
+   * (if null, a new vector will be created) instead of allocating intermediate vectors.
+   * Safe to be called with {@code target == vector}.
+   * <p>
+   * If {@link #isWorldTransformationCached()} the cached world transformation is used,
+   * and the {@link #reference()} hierarchy is not traversed.
+   *
+   * @return the target vector
+   */
+  public Vector transformOf(Vector vector, Vector target) {
+    if (isWorldTransformationCached()) {
+      _updateWorldTransformation();
+      target = _orientation.inverseRotate(vector, target);
+      return Vector.divide(target, _magnitude, target);
+    }
     if (reference() != null)
-      return localTransformOf(reference().transformOf(vector));
+      target = reference().transformOf(vector, target);
+    else if (target == null)
+      target = vector.get();
     else
-      return localTransformOf(vector);
+      target.set(vector);
+    return localTransformOf(target, target);
   }
 
   /**
@@ -1448,15 +1722,36 @@ public class Frame {
    * <p>
    * {@link #transformOf(Vector)} performs the inverse transformation. Use
    * {@link #inverseCoordinatesOf(Vector)} to transform coordinates instead of vectors.
+   *
+   * @see #inverseTransformOf(Vector, Vector)
    */
   public Vector inverseTransformOf(Vector vector) {
-    Frame fr = this;
-    Vector res = vector;
+    return inverseTransformOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #inverseTransformOf(Vector)}, but writes the result into {@code target}
+   * (if null, a new vector will be created) instead of allocating intermediate vectors.
+   * Safe to be called with {@code target == vector}.
+   * <p>
+   * If {@link #isWorldTransformationCached()} the cached world transformation is used,
+   * and the {@link #reference()} hierarchy is not traversed.
+   *
+   * @return the target vector
+   */
+  public Vector inverseTransformOf(Vector vector, Vector target) {
+    if (isWorldTransformationCached()) {
+      _updateWorldTransformation();
+      target = Vector.multiply(vector, _magnitude, target);
+      return _orientation.rotate(target, target);
+    }
+    target = localInverseTransformOf(vector, target);
+    Frame fr = reference();
     while (fr != null) {
-      res = fr.localInverseTransformOf(res);
+      fr.localInverseTransformOf(target, target);
       fr = fr.reference();
     }
-    return res;
+    return target;
   }
 
   /**
@@ -1467,9 +1762,21 @@ public class Frame {
    * {@link #localInverseTransformOf(Vector)} performs the inverse transformation.
    *
    * @see #localCoordinatesOf(Vector)
+   * @see #localTransformOf(Vector, Vector)
    */
   public Vector localTransformOf(Vector vector) {
-    return Vector.divide(rotation().inverseRotate(vector), scaling());
+    return localTransformOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #localTransformOf(Vector)}, but writes the result into {@code target}
+   * (if null, a new vector will be created). Safe to be called with {@code target == vector}.
+   *
+   * @return the target vector
+   */
+  public Vector localTransformOf(Vector vector, Vector target) {
+    target = rotation().inverseRotate(vector, target);
+    return Vector.divide(target, scaling(), target);
   }
 
   /**
@@ -1479,8 +1786,181 @@ public class Frame {
    * {@link #localTransformOf(Vector)} performs the inverse transformation.
    *
    * @see #localInverseCoordinatesOf(Vector)
+   * @see #localInverseTransformOf(Vector, Vector)
    */
   public Vector localInverseTransformOf(Vector vector) {
-    return rotation().rotate(Vector.multiply(vector, scaling()));
+    return localInverseTransformOf(vector, null);
+  }
+
+  /**
+   * Same as {@link #localInverseTransformOf(Vector)}, but writes the result into
+   * {@code target} (if null, a new vector will be created). Safe to be called with
+   * {@code target == vector}.
+   *
+   * @return the target vector
+   */
+  public Vector localInverseTransformOf(Vector vector, Vector target) {
+    target = Vector.multiply(vector, scaling(), target);
+    return rotation().rotate(target, target);
+  }
+
+  // BATCH CONVERSION
+
+  /**
+   * Batch version of {@link #coordinatesOf(Vector)}. Converts the world coordinates of the
+   * points packed (xyz interleaved) in {@code points} into this frame coordinate system.
+   * <p>
+   * The world transformation of the frame is composed only once for the whole array. The
+   * result is written into {@code target} (if null, a new array will be created), which may
+   * be {@code points} itself.
+   *
+   * @return the target array
+   * @see #inverseCoordinatesOf(float[], float[])
+   */
+  public float[] coordinatesOf(float[] points, float[] target) {
+    Matrix matrix = worldMatrix();
+    matrix.invert();
+    return _transform(matrix, true, points, target);
+  }
+
+  /**
+   * Batch version of {@link #inverseCoordinatesOf(Vector)}. Converts the points packed
+   * (xyz interleaved) in {@code points}, defined in this frame coordinate system, into the
+   * world coordinate system.
+   * <p>
+   * The world transformation of the frame is composed only once for the whole array. The
+   * result is written into {@code target} (if null, a new array will be created), which may
+   * be {@code points} itself.
+   *
+   * @return the target array
+   * @see #coordinatesOf(float[], float[])
+   */
+  public float[] inverseCoordinatesOf(float[] points, float[] target) {
+    return _transform(worldMatrix(), true, points, target);
+  }
+
+  /**
+   * Batch version of {@link #transformOf(Vector)}. Same as
+   * {@link #coordinatesOf(float[], float[])} but only the rotational and scaling part of
+   * the frame transformation is taken into account.
+   *
+   * @return the target array
+   * @see #inverseTransformOf(float[], float[])
+   */
+  public float[] transformOf(float[] vectors, float[] target) {
+    Matrix matrix = worldMatrix();
+    matrix.invert();
+    return _transform(matrix, false, vectors, target);
+  }
+
+  /**
+   * Batch version of {@link #inverseTransformOf(Vector)}. Same as
+   * {@link #inverseCoordinatesOf(float[], float[])} but only the rotational and scaling
+   * part of the frame transformation is taken into account.
+   *
+   * @return the target array
+   * @see #transformOf(float[], float[])
+   */
+  public float[] inverseTransformOf(float[] vectors, float[] target) {
+    return _transform(worldMatrix(), false, vectors, target);
+  }
+
+  /**
+   * Same as {@link #coordinatesOf(float[], float[])}, but using buffers. The
+   * {@code points} are read from the buffer {@code position()} to its {@code limit()}, and
+   * the results are written at the same relative offsets from the {@code target} buffer
+   * {@code position()}. The position of neither buffer is modified.
+   *
+   * @return the target buffer (if null, a new buffer will be created)
+   */
+  public FloatBuffer coordinatesOf(FloatBuffer points, FloatBuffer target) {
+    Matrix matrix = worldMatrix();
+    matrix.invert();
+    return _transform(matrix, true, points, target);
+  }
+
+  /**
+   * Same as {@link #inverseCoordinatesOf(float[], float[])}, but using buffers. See
+   * {@link #coordinatesOf(FloatBuffer, FloatBuffer)} for the buffer conventions.
+   *
+   * @return the target buffer (if null, a new buffer will be created)
+   */
+  public FloatBuffer inverseCoordinatesOf(FloatBuffer points, FloatBuffer target) {
+    return _transform(worldMatrix(), true, points, target);
+  }
+
+  /**
+   * Same as {@link #transformOf(float[], float[])}, but using buffers. See
+   * {@link #coordinatesOf(FloatBuffer, FloatBuffer)} for the buffer conventions.
+   *
+   * @return the target buffer (if null, a new buffer will be created)
+   */
+  public FloatBuffer transformOf(FloatBuffer vectors, FloatBuffer target) {
+    Matrix matrix = worldMatrix();
+    matrix.invert();
+    return _transform(matrix, false, vectors, target);
+  }
+
+  /**
+   * Same as {@link #inverseTransformOf(float[], float[])}, but using buffers. See
+   * {@link #coordinatesOf(FloatBuffer, FloatBuffer)} for the buffer conventions.
+   *
+   * @return the target buffer (if null, a new buffer will be created)
+   */
+  public FloatBuffer inverseTransformOf(FloatBuffer vectors, FloatBuffer target) {
+    return _transform(worldMatrix(), false, vectors, target);
+  }
+
+  /**
+   * Internal use. Applies {@code matrix} to all the xyz interleaved {@code source} elements.
+   * The translation part of the {@code matrix} is only applied when {@code point} is
+   * {@code true}.
+   */
+  protected static float[] _transform(Matrix matrix, boolean point, float[] source, float[] target) {
+    if (source.length % 3 != 0)
+      throw new RuntimeException("Packed xyz arrays length should be a multiple of 3");
+    if (target == null)
+      target = new float[source.length];
+    else if (target.length < source.length)
+      throw new RuntimeException("Target array is too small: " + target.length + " < " + source.length);
+    float[] m = matrix._matrix;
+    float m0 = m[0], m1 = m[1], m2 = m[2], m4 = m[4], m5 = m[5], m6 = m[6], m8 = m[8], m9 = m[9], m10 = m[10];
+    float m12 = point ? m[12] : 0, m13 = point ? m[13] : 0, m14 = point ? m[14] : 0;
+    for (int i = 0; i < source.length; i += 3) {
+      float x = source[i];
+      float y = source[i + 1];
+      float z = source[i + 2];
+      target[i] = m0 * x + m4 * y + m8 * z + m12;
+      target[i + 1] = m1 * x + m5 * y + m9 * z + m13;
+      target[i + 2] = m2 * x + m6 * y + m10 * z + m14;
+    }
+    return target;
+  }
+
+  /**
+   * Internal use. Buffer version of {@link #_transform(Matrix, boolean, float[], float[])}.
+   */
+  protected static FloatBuffer _transform(Matrix matrix, boolean point, FloatBuffer source, FloatBuffer target) {
+    int length = source.remaining();
+    if (length % 3 != 0)
+      throw new RuntimeException("Packed xyz buffers length should be a multiple of 3");
+    if (target == null)
+      target = FloatBuffer.allocate(length);
+    else if (target.remaining() < length)
+      throw new RuntimeException("Target buffer is too small: " + target.remaining() + " < " + length);
+    float[] m = matrix._matrix;
+    float m0 = m[0], m1 = m[1], m2 = m[2], m4 = m[4], m5 = m[5], m6 = m[6], m8 = m[8], m9 = m[9], m10 = m[10];
+    float m12 = point ? m[12] : 0, m13 = point ? m[13] : 0, m14 = point ? m[14] : 0;
+    int from = source.position();
+    int to = target.position();
+    for (int i = 0; i < length; i += 3) {
+      float x = source.get(from + i);
+      float y = source.get(from + i + 1);
+      float z = source.get(from + i + 2);
+      target.put(to + i, m0 * x + m4 * y + m8 * z + m12);
+      target.put(to + i + 1, m1 * x + m5 * y + m9 * z + m13);
+      target.put(to + i + 2, m2 * x + m6 * y + m10 * z + m14);
+    }
+    return target;
   }
 }
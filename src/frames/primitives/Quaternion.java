@@ -578,22 +578,47 @@ public class Quaternion {
    * @param vector the Vector
    */
   public Vector rotate(Vector vector) {
-    float q00 = 2.0f * this._quaternion[0] * this._quaternion[0];
-    float q11 = 2.0f * this._quaternion[1] * this._quaternion[1];
-    float q22 = 2.0f * this._quaternion[2] * this._quaternion[2];
+    return rotate(vector, null);
+  }
 
-    float q01 = 2.0f * this._quaternion[0] * this._quaternion[1];
-    float q02 = 2.0f * this._quaternion[0] * this._quaternion[2];
-    float q03 = 2.0f * this._quaternion[0] * this._quaternion[3];
+  /**
+   * Rotates {@code vector} by the quaternion rotation and writes the result into
+   * {@code target}. Safe to be called with {@code target == vector}.
+   *
+   * @param vector the Vector
+   * @param target the Vector to store the result (if null, a new vector will be created)
+   * @return the target vector
+   * @see #rotate(Vector)
+   */
+  public Vector rotate(Vector vector, Vector target) {
+    return _rotate(this._quaternion[0], this._quaternion[1], this._quaternion[2], this._quaternion[3], vector, target);
+  }
 
-    float q12 = 2.0f * this._quaternion[1] * this._quaternion[2];
-    float q13 = 2.0f * this._quaternion[1] * this._quaternion[3];
+  /**
+   * Internal use. Rotates {@code vector} by the quaternion defined by {@code x}, {@code y},
+   * {@code z} and {@code w}, and writes the result into {@code target}.
+   */
+  protected static Vector _rotate(float x, float y, float z, float w, Vector vector, Vector target) {
+    float q00 = 2.0f * x * x;
+    float q11 = 2.0f * y * y;
+    float q22 = 2.0f * z * z;
 
-    float q23 = 2.0f * this._quaternion[2] * this._quaternion[3];
+    float q01 = 2.0f * x * y;
+    float q02 = 2.0f * x * z;
+    float q03 = 2.0f * x * w;
+
+    float q12 = 2.0f * y * z;
+    float q13 = 2.0f * y * w;
+
+    float q23 = 2.0f * z * w;
 
-    return new Vector((1.0f - q11 - q22) * vector._vector[0] + (q01 - q23) * vector._vector[1] + (q02 + q13) * vector._vector[2],
-        (q01 + q23) * vector._vector[0] + (1.0f - q22 - q00) * vector._vector[1] + (q12 - q03) * vector._vector[2],
-        (q02 - q13) * vector._vector[0] + (q12 + q03) * vector._vector[1] + (1.0f - q11 - q00) * vector._vector[2]);
+    float vx = (1.0f - q11 - q22) * vector._vector[0] + (q01 - q23) * vector._vector[1] + (q02 + q13) * vector._vector[2];
+    float vy = (q01 + q23) * vector._vector[0] + (1.0f - q22 - q00) * vector._vector[1] + (q12 - q03) * vector._vector[2];
+    float vz = (q02 - q13) * vector._vector[0] + (q12 + q03) * vector._vector[1] + (1.0f - q11 - q00) * vector._vector[2];
+    if (target == null)
+      return new Vector(vx, vy, vz);
+    target.set(vx, vy, vz);
+    return target;
   }
 
   /**
@@ -604,9 +629,22 @@ public class Quaternion {
    * @param vector the Vector
    */
   public Vector inverseRotate(Vector vector) {
-    Quaternion tempQuaternion = new Quaternion(this._quaternion[0], this._quaternion[1], this._quaternion[2], this._quaternion[3]);
-    tempQuaternion.invert();
-    return tempQuaternion.rotate(vector);
+    return inverseRotate(vector, null);
+  }
+
+  /**
+   * Rotates {@code vector} by the quaternion {@link #inverse()} rotation and writes the
+   * result into {@code target}, without instantiating the inverse quaternion. Safe to be
+   * called with {@code target == vector}.
+   *
+   * @param vector the Vector
+   * @param target the Vector to store the result (if null, a new vector will be created)
+   * @return the target vector
+   * @see #inverseRotate(Vector)
+   */
+  public Vector inverseRotate(Vector vector, Vector target) {
+    float sqNorm = squaredNorm(this);
+    return _rotate(this._quaternion[0] / -sqNorm, this._quaternion[1] / -sqNorm, this._quaternion[2] / -sqNorm, this._quaternion[3] / sqNorm, vector, target);
   }
 
   /**
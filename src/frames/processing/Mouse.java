@@ -11,8 +11,11 @@
 package frames.processing;
 
 import frames.core.Graph;
+import frames.core.Node;
 import frames.input.Agent;
 import frames.input.Event;
+import frames.input.EventPool;
+import frames.input.Grabber;
 import frames.input.event.MotionEvent1;
 import frames.input.event.MotionEvent2;
 import frames.input.event.TapEvent;
@@ -20,6 +23,9 @@ import frames.primitives.Point;
 import processing.awt.PGraphicsJava2D;
 import processing.core.PApplet;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Mouse agent. A Processing fully fledged mouse {@link Agent}.
  *
@@ -28,9 +34,17 @@ import processing.core.PApplet;
 public class Mouse extends Agent {
   protected Point _upperLeftCorner;
   protected Graph _graph;
-  protected MotionEvent2 _currentEvent, _previousEvent;
+  // agent-owned copy of the last motion event, used to build relative events
+  protected MotionEvent2 _previousEvent;
+  protected EventPool<MotionEvent2> _motionEvents = new EventPool<MotionEvent2>(new MotionEvent2(0, 0));
+  protected EventPool<MotionEvent1> _wheelEvents = new EventPool<MotionEvent1>(new MotionEvent1(0));
+  protected EventPool<TapEvent> _tapEvents = new EventPool<TapEvent>(new TapEvent(0, 0, Event.NO_ID));
   protected boolean _move, _press, _drag, _release;
   protected Mode _mode;
+  // grabbers not indexed by the graph tracking grid, see _pick()
+  protected List<Grabber> _others = new ArrayList<Grabber>();
+  protected List<Node> _othersNodes;
+  protected long _othersVersion = -1;
 
   public enum Mode {
     MOVE, CLICK
@@ -77,6 +91,9 @@ public class Mouse extends Agent {
 
   /**
    * Processing mouseEvent method to be registered at the PApplet's instance.
+   * <p>
+   * The events are recycled from the mouse event pools (see {@link EventPool}), so the
+   * mouse doesn't allocate at steady state.
    */
   public void mouseEvent(processing.event.MouseEvent mouseEvent) {
     _move = mouseEvent.getAction() == processing.event.MouseEvent.MOVE;
@@ -84,28 +101,88 @@ public class Mouse extends Agent {
     _drag = mouseEvent.getAction() == processing.event.MouseEvent.DRAG;
     _release = mouseEvent.getAction() == processing.event.MouseEvent.RELEASE;
     if (_move || _press || _drag || _release) {
-      _currentEvent = new MotionEvent2(_previousEvent, mouseEvent.getX() - _upperLeftCorner.x(), mouseEvent.getY() - _upperLeftCorner.y(),
-          _modifiers(mouseEvent), _move ? Event.NO_ID : mouseEvent.getButton());
+      MotionEvent2 event = _motionEvents.acquire().set(_previousEvent, mouseEvent.getX() - _upperLeftCorner.x(),
+          mouseEvent.getY() - _upperLeftCorner.y(), _modifiers(mouseEvent), _move ? Event.NO_ID : mouseEvent.getButton());
       if (_move && (mode() == Mode.MOVE))
-        poll(_currentEvent);
-      handle(_press ? _currentEvent.fire() : _release ? _currentEvent.flush() : _currentEvent);
-      _previousEvent = _currentEvent.get();
+        poll(event);
+      if (_previousEvent == null)
+        _previousEvent = event.get();
+      else
+        _previousEvent.set(event);
+      MotionEvent2 handledEvent = _press ? event.fire() : _release ? event.flush() : event;
+      if (handledEvent != event)
+        event.release();
+      if (!handle(handledEvent))
+        handledEvent.release();
       return;
     }
     if (mouseEvent.getAction() == processing.event.MouseEvent.WHEEL) {
-      handle(new MotionEvent1(mouseEvent.getCount(), mouseEvent.getModifiers(), processing.event.MouseEvent.WHEEL));
+      MotionEvent1 event = _wheelEvents.acquire().set(mouseEvent.getCount(), mouseEvent.getModifiers(), processing.event.MouseEvent.WHEEL);
+      if (!handle(event))
+        event.release();
       return;
     }
     if (mouseEvent.getAction() == processing.event.MouseEvent.CLICK) {
-      TapEvent tapEvent = new TapEvent(mouseEvent.getX() - _upperLeftCorner.x(), mouseEvent.getY() - _upperLeftCorner.y(),
+      TapEvent event = _tapEvents.acquire().set(mouseEvent.getX() - _upperLeftCorner.x(), mouseEvent.getY() - _upperLeftCorner.y(),
           _modifiers(mouseEvent), mouseEvent.getButton(), mouseEvent.getCount());
       if (mode() == Mode.CLICK)
-        poll(tapEvent);
-      handle(tapEvent);
+        poll(event);
+      if (!handle(event))
+        event.release();
       return;
     }
   }
 
+  /**
+   * Queries only the {@link Graph#trackingCandidates(float, float)} (together with the
+   * grabbers that aren't nodes reachable from the graph) when the graph tracking grid is
+   * enabled, keeping the {@link #grabbers()} order priority. Falls back to the default
+   * linear search otherwise.
+   *
+   * @see Graph#enableTrackingGrid(boolean)
+   */
+  @Override
+  protected Grabber _pick(Event event, Grabber defaultGrabber, Grabber trackedGrabber) {
+    float x, y;
+    if (event instanceof MotionEvent2) {
+      x = ((MotionEvent2) event).x();
+      y = ((MotionEvent2) event).y();
+    } else if (event instanceof TapEvent) {
+      x = ((TapEvent) event).x();
+      y = ((TapEvent) event).y();
+    } else
+      return super._pick(event, defaultGrabber, trackedGrabber);
+    if (!_graph.isTrackingGridEnabled())
+      return super._pick(event, defaultGrabber, trackedGrabber);
+    List<Node> nodes = _graph.reachableNodes();
+    if (_othersVersion != _grabbersVersion || _othersNodes != nodes) {
+      _others.clear();
+      for (Grabber grabber : _grabberPool)
+        if (!(grabber instanceof Node && _graph.node(((Node) grabber).id()) == grabber))
+          _others.add(grabber);
+      _othersNodes = nodes;
+      _othersVersion = _grabbersVersion;
+    }
+    Grabber picked = null;
+    int pickedPosition = Integer.MAX_VALUE;
+    for (Node node : _graph.trackingCandidates(x, y)) {
+      int position = _position(node);
+      if (position >= 0 && position < pickedPosition && node != defaultGrabber && node != trackedGrabber)
+        if (node.track(event)) {
+          picked = node;
+          pickedPosition = position;
+        }
+    }
+    for (Grabber grabber : _others) {
+      if (_position(grabber) > pickedPosition)
+        break;
+      if (grabber != defaultGrabber && grabber != trackedGrabber)
+        if (grabber.track(event))
+          return grabber;
+    }
+    return picked;
+  }
+
   /**
    * PGraphicsJava2D mouse event modifiers fix.
    * <p>
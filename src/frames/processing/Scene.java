@@ -33,9 +33,14 @@ import processing.opengl.PGraphics3D;
 import processing.opengl.PGraphicsOpenGL;
 import processing.opengl.PShader;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A 2D or 3D interactive, on-screen or off-screen, Processing {@link Graph}.
@@ -222,7 +227,23 @@ public class Scene extends Graph implements PConstants {
   // _bb : picking buffer
   protected PGraphics _targetPGraphics;
   protected PGraphics _bb;
-  protected boolean _bbEnabled;
+  // last back buffer region rendered and read back (ARGB), see _backBufferPixel()
+  protected long _bbFrame = -1;
+  protected int _bbX, _bbY, _bbWidth, _bbHeight;
+  protected int[] _bbPixels;
+  // picking regions (x, y, width, height) of both pixel buffer objects and the synchronous path
+  protected int[] _bbRegion = new int[12];
+  protected ByteBuffer _bbBuffer;
+  // asynchronous picking: two pixel buffer objects written in turns
+  protected boolean _bbAsync, _bbRequested;
+  protected int _bbRequestX, _bbRequestY;
+  protected int[] _bbPBOs;
+  protected int _bbPBO;
+  protected long[] _bbPBOFrames = {-1, -1};
+  // gl constants not exposed by PGL
+  protected static final int _PIXEL_PACK_BUFFER = 0x88EB;
+  protected static final int _STREAM_READ = 0x88E1;
+  protected static final int _MAP_READ_BIT = 0x0001;
   protected PShader _triangleShader, _lineShader, _pointShader;
 
   // CONSTRUCTORS
@@ -284,6 +305,8 @@ public class Scene extends Graph implements PConstants {
         pApplet().createGraphics(frontBuffer().width, frontBuffer().height, frontBuffer() instanceof PGraphics3D ? P3D : P2D) :
         null;
     if (_bb != null) {
+      // picking ids shouldn't be blended, and single sampled buffers may be read back as is
+      _bb.noSmooth();
       _triangleShader = pApplet().loadShader("PickingBuffer.frag");
       _lineShader = pApplet().loadShader("PickingBuffer.frag");
       _pointShader = pApplet().loadShader("PickingBuffer.frag");
@@ -343,23 +366,317 @@ public class Scene extends Graph implements PConstants {
   }
 
   /**
-   * Internal use. Traverse the scene {@link #nodes()}) into the
-   * {@link #backBuffer()} to perform picking on the scene {@link #nodes()}.
+   * Side length, in pixels, of the {@link #backBuffer()} window centered at the pointer which
+   * is rendered (scissored to it) and read back on synchronous picking. Windows requested
+   * within the same frame are merged, see {@link #_renderBackBuffer(int, int)}.
+   */
+  public static int BACK_BUFFER_WINDOW = 9;
+
+  /**
+   * Side length, in pixels, of the {@link #backBuffer()} window centered at the pointer which
+   * is rendered and read back at the end of the frame when {@link #isAsyncPickingEnabled()}.
+   * It should be large enough to cover the pointer displacement between frames.
+   */
+  public static int ASYNC_BACK_BUFFER_WINDOW = 65;
+
+  /**
+   * Disables asynchronous picking.
+   *
+   * @see #enableAsyncPicking(boolean)
+   */
+  public void disableAsyncPicking() {
+    enableAsyncPicking(false);
+  }
+
+  /**
+   * Enables asynchronous picking.
+   *
+   * @see #enableAsyncPicking(boolean)
+   */
+  public void enableAsyncPicking() {
+    enableAsyncPicking(true);
+  }
+
+  /**
+   * Enables or disables asynchronous {@link Node.Precision#EXACT} picking according to
+   * {@code flag}.
+   * <p>
+   * When enabled, the {@link #backBuffer()} region around the last picked pixel is rendered
+   * at the end of the frame and read back into a pixel buffer object (two of them are used in
+   * turns), so that the readback doesn't stall the rendering pipeline. Picking during the
+   * next frame is then answered from that result, i.e., with one frame of latency, and pixels
+   * lying outside its {@link #ASYNC_BACK_BUFFER_WINDOW} region are reported as empty.
+   * <p>
+   * Asynchronous picking isn't enabled (a warning is issued instead) if the renderer doesn't
+   * support pixel buffer objects (OpenGL 3.0 or OpenGL ES 3.0 are required), so it should be
+   * enabled once the renderer is up, e.g., within {@code setup()}.
+   *
+   * @see #isAsyncPickingEnabled()
+   */
+  public void enableAsyncPicking(boolean flag) {
+    if (flag && backBuffer() == null) {
+      System.out.println("Warning: asynchronous picking is not enabled by your PGraphics.");
+      return;
+    }
+    if (flag && !_hasPBOs()) {
+      System.out.println("Warning: asynchronous picking requires pixel buffer objects which aren't supported by your renderer. Using synchronous picking instead.");
+      return;
+    }
+    _bbAsync = flag;
+    // discard the current and pending picking regions
+    _bbFrame = -1;
+    Arrays.fill(_bbPBOFrames, -1);
+  }
+
+  /**
+   * Returns {@code true} if asynchronous picking is enabled and {@code false} otherwise.
+   *
+   * @see #enableAsyncPicking(boolean)
+   */
+  public boolean isAsyncPickingEnabled() {
+    return _bbAsync;
+  }
+
+  /**
+   * Disables wide picking.
+   *
+   * @see #enableWidePicking(boolean)
+   */
+  public void disableWidePicking() {
+    enableWidePicking(false);
+  }
+
+  /**
+   * Enables wide picking.
+   *
+   * @see #enableWidePicking(boolean)
+   */
+  public void enableWidePicking() {
+    enableWidePicking(true);
+  }
+
+  /**
+   * Enables or disables wide {@link Node.Precision#EXACT} picking according to {@code flag}.
+   * <p>
+   * Shapes are identified in the {@link #backBuffer()} by a picking id, encoded as a
+   * color. Ids are only given to the shapes being picked and are recycled as soon as they
+   * are pruned (see {@link #pruneBranch(Node)}), but they are limited to {@code 2^24} (the
+   * RGB colors) at a time by default. Wide picking encodes 7 more bits into the alpha
+   * channel (which is always written as is into the back buffer), i.e., the back buffer is
+   * used as an integer render target, allowing up to {@code 2^31} simultaneous ids.
+   *
+   * @see #isWidePickingEnabled()
+   */
+  public void enableWidePicking(boolean flag) {
+    _pickingIdLimit = flag ? Integer.MAX_VALUE : 1 << 24;
+  }
+
+  /**
+   * Returns {@code true} if wide picking is enabled and {@code false} otherwise.
+   *
+   * @see #enableWidePicking(boolean)
+   */
+  public boolean isWidePickingEnabled() {
+    return _pickingIdLimit > 1 << 24;
+  }
+
+  /**
+   * Internal use. Returns the {@link #backBuffer()} ARGB color at pixel {@code (x, y)}, or
+   * {@code 0} (no shape) if it lies outside the buffer. Used by {@link Shape#track(float, float)}
+   * for {@link Node.Precision#EXACT} picking.
+   * <p>
+   * The back buffer is rendered on-demand: only when the pixel doesn't belong to the region
+   * already rendered within the current frame, in which case just the
+   * {@link #BACK_BUFFER_WINDOW} sized region around {@code (x, y)} (merged with that region)
+   * is rendered and read back.
+   * See {@link #enableAsyncPicking(boolean)} for the asynchronous alternative.
+   */
+  protected int _backBufferPixel(int x, int y) {
+    if (x < 0 || y < 0 || x >= backBuffer().width || y >= backBuffer().height)
+      return 0;
+    if (isAsyncPickingEnabled()) {
+      _bbRequested = true;
+      _bbRequestX = x;
+      _bbRequestY = y;
+      _mapBackBuffer();
+      // results older than the previous frame are discarded
+      if (TimingHandler.frameCount - _bbFrame > 1 || x < _bbX || y < _bbY || x >= _bbX + _bbWidth || y >= _bbY + _bbHeight)
+        return 0;
+    } else if (_bbFrame != TimingHandler.frameCount || x < _bbX || y < _bbY || x >= _bbX + _bbWidth || y >= _bbY + _bbHeight)
+      _renderBackBuffer(x, y);
+    return _bbPixels[(y - _bbY) * _bbWidth + x - _bbX];
+  }
+
+  /**
+   * Internal use. Traverse the scene {@link #nodes()}) into the {@link #backBuffer()}
+   * region around pixel {@code (x, y)} (scissored to it) and reads it back. Within the same
+   * frame, the region is the smallest rectangle enclosing the previous one and the window
+   * around {@code (x, y)}, so that the pixels already read back remain valid.
+   *
+   * @see #_backBufferPixel(int, int)
+   */
+  protected void _renderBackBuffer(int x, int y) {
+    PGraphicsOpenGL pGraphics = (PGraphicsOpenGL) backBuffer();
+    _backBufferRegion(x, y, BACK_BUFFER_WINDOW, _bbRegion, 8);
+    if (_bbFrame == TimingHandler.frameCount) {
+      int right = Math.max(_bbX + _bbWidth, _bbRegion[8] + _bbRegion[10]);
+      int bottom = Math.max(_bbY + _bbHeight, _bbRegion[9] + _bbRegion[11]);
+      _bbRegion[8] = Math.min(_bbX, _bbRegion[8]);
+      _bbRegion[9] = Math.min(_bbY, _bbRegion[9]);
+      _bbRegion[10] = right - _bbRegion[8];
+      _bbRegion[11] = bottom - _bbRegion[9];
+    }
+    _bbX = _bbRegion[8];
+    _bbY = _bbRegion[9];
+    _bbWidth = _bbRegion[10];
+    _bbHeight = _bbRegion[11];
+    if (_bbBuffer == null || _bbBuffer.capacity() < 4 * _bbWidth * _bbHeight)
+      _bbBuffer = ByteBuffer.allocateDirect(4 * _bbWidth * _bbHeight).order(ByteOrder.nativeOrder());
+    _drawBackBuffer(_bbX, _bbY, _bbWidth, _bbHeight);
+    _bbBuffer.clear();
+    // the back buffer isn't multisampled (see the constructor) so it needn't be resolved
+    PGL pgl = pGraphics.beginPGL();
+    // gl rows go bottom-up
+    pgl.readPixels(_bbX, pGraphics.height - _bbY - _bbHeight, _bbWidth, _bbHeight, PGL.RGBA, PGL.UNSIGNED_BYTE, _bbBuffer);
+    pGraphics.endPGL();
+    pGraphics.endDraw();
+    _unpackBackBuffer(_bbBuffer);
+    _bbFrame = TimingHandler.frameCount;
+  }
+
+  /**
+   * Internal use. Traverse the scene {@link #nodes()}) into the {@link #backBuffer()}
+   * region around the last picked pixel and reads it back into a pixel buffer object,
+   * without waiting for it. Only if {@link #isAsyncPickingEnabled()} and something was
+   * picked since the last call.
    * <p>
    * Called by {@link #draw()} (on-screen scenes) and {@link #endDraw()} (off-screen
    * scenes).
+   *
+   * @see #_mapBackBuffer()
    */
-  protected void _renderBackBuffer() {
-    if (!_bbEnabled)
+  protected void _readBackBuffer() {
+    if (!isAsyncPickingEnabled() || !_bbRequested)
       return;
-    backBuffer().beginDraw();
-    backBuffer().pushStyle();
-    backBuffer().background(0);
-    traverse(backBuffer());
-    backBuffer().popStyle();
-    backBuffer().endDraw();
-    // if (frames().size() > 0)
-    backBuffer().loadPixels();
+    _bbRequested = false;
+    PGraphicsOpenGL pGraphics = (PGraphicsOpenGL) backBuffer();
+    int pbo = _bbPBO;
+    _backBufferRegion(_bbRequestX, _bbRequestY, ASYNC_BACK_BUFFER_WINDOW, _bbRegion, 4 * pbo);
+    int x = _bbRegion[4 * pbo], y = _bbRegion[4 * pbo + 1], width = _bbRegion[4 * pbo + 2], height = _bbRegion[4 * pbo + 3];
+    _drawBackBuffer(x, y, width, height);
+    PGL pgl = pGraphics.beginPGL();
+    if (_bbPBOs == null) {
+      IntBuffer buffers = IntBuffer.allocate(2);
+      pgl.genBuffers(2, buffers);
+      _bbPBOs = new int[]{buffers.get(0), buffers.get(1)};
+    }
+    pgl.bindBuffer(_PIXEL_PACK_BUFFER, _bbPBOs[pbo]);
+    pgl.bufferData(_PIXEL_PACK_BUFFER, 4 * width * height, null, _STREAM_READ);
+    // gl rows go bottom-up
+    pgl.readPixels(x, pGraphics.height - y - height, width, height, PGL.RGBA, PGL.UNSIGNED_BYTE, 0);
+    pgl.bindBuffer(_PIXEL_PACK_BUFFER, 0);
+    pGraphics.endPGL();
+    pGraphics.endDraw();
+    _bbPBOFrames[pbo] = TimingHandler.frameCount;
+    _bbPBO = 1 - pbo;
+  }
+
+  /**
+   * Internal use. Unpacks the latest pixel buffer object read back by
+   * {@link #_readBackBuffer()} within a previous frame (if it hasn't been already) into the
+   * picking region.
+   */
+  protected void _mapBackBuffer() {
+    int pbo = 1 - _bbPBO;
+    if (_bbPBOs == null || _bbPBOFrames[pbo] < 0 || _bbPBOFrames[pbo] >= TimingHandler.frameCount)
+      return;
+    _bbX = _bbRegion[4 * pbo];
+    _bbY = _bbRegion[4 * pbo + 1];
+    _bbWidth = _bbRegion[4 * pbo + 2];
+    _bbHeight = _bbRegion[4 * pbo + 3];
+    PGL pgl = backBuffer().beginPGL();
+    pgl.bindBuffer(_PIXEL_PACK_BUFFER, _bbPBOs[pbo]);
+    ByteBuffer buffer = pgl.mapBufferRange(_PIXEL_PACK_BUFFER, 0, 4 * _bbWidth * _bbHeight, _MAP_READ_BIT);
+    _unpackBackBuffer(buffer);
+    pgl.unmapBuffer(_PIXEL_PACK_BUFFER);
+    pgl.bindBuffer(_PIXEL_PACK_BUFFER, 0);
+    backBuffer().endPGL();
+    _bbFrame = _bbPBOFrames[pbo];
+    _bbPBOFrames[pbo] = -1;
+  }
+
+  /**
+   * Internal use. Returns {@code true} if the {@link #backBuffer()} renderer supports pixel
+   * buffer objects mapping and {@code false} otherwise.
+   *
+   * @see #_hasPBOs(String)
+   */
+  protected boolean _hasPBOs() {
+    PGL pgl = backBuffer().beginPGL();
+    String version = pgl.getString(PGL.VERSION);
+    backBuffer().endPGL();
+    return _hasPBOs(version);
+  }
+
+  /**
+   * Internal use. Returns {@code true} if the OpenGL {@code version} string supports pixel
+   * buffer objects mapping, i.e., OpenGL 3.0 or OpenGL ES 3.0, and {@code false} otherwise.
+   */
+  protected static boolean _hasPBOs(String version) {
+    if (version == null)
+      return false;
+    Matcher matcher = Pattern.compile("(\\d+)\\.(\\d+)").matcher(version);
+    return matcher.find() && Integer.parseInt(matcher.group(1)) >= 3;
+  }
+
+  /**
+   * Internal use. Stores the {@code (x, y, width, height)} of the {@code window} sized
+   * {@link #backBuffer()} region centered at pixel {@code (x, y)} (clamped to the buffer) into
+   * {@code target} at {@code offset}.
+   */
+  protected void _backBufferRegion(int x, int y, int window, int[] target, int offset) {
+    int half = window / 2;
+    target[offset] = Math.max(0, x - half);
+    target[offset + 1] = Math.max(0, y - half);
+    target[offset + 2] = Math.min(backBuffer().width, x + half + 1) - target[offset];
+    target[offset + 3] = Math.min(backBuffer().height, y + half + 1) - target[offset + 1];
+  }
+
+  /**
+   * Internal use. Begins drawing into the {@link #backBuffer()} and traverses the scene
+   * {@link #nodes()} into it, scissored to the given region. The caller should read the
+   * region back and then call {@code backBuffer().endDraw()}.
+   */
+  protected void _drawBackBuffer(int x, int y, int width, int height) {
+    PGraphicsOpenGL pGraphics = (PGraphicsOpenGL) backBuffer();
+    pGraphics.beginDraw();
+    pGraphics.pushStyle();
+    // ids are written as is, alpha included
+    pGraphics.blendMode(REPLACE);
+    pGraphics.imageMode(CORNER);
+    pGraphics.clip(x, y, width, height);
+    pGraphics.background(0);
+    PGraphics target = _targetPGraphics;
+    traverse(pGraphics);
+    _targetPGraphics = target;
+    pGraphics.noClip();
+    pGraphics.popStyle();
+    pGraphics.flush();
+  }
+
+  /**
+   * Internal use. Converts the {@code buffer} gl RGBA pixels of the picking region
+   * ({@code _bbWidth * _bbHeight}, bottom-up) into the top-down ARGB picking pixels.
+   */
+  protected void _unpackBackBuffer(ByteBuffer buffer) {
+    if (_bbPixels == null || _bbPixels.length < _bbWidth * _bbHeight)
+      _bbPixels = new int[_bbWidth * _bbHeight];
+    for (int row = 0; row < _bbHeight; row++)
+      for (int column = 0; column < _bbWidth; column++) {
+        int i = 4 * ((_bbHeight - 1 - row) * _bbWidth + column);
+        _bbPixels[row * _bbWidth + column] = ((buffer.get(i + 3) & 255) << 24) | ((buffer.get(i) & 255) << 16)
+            | ((buffer.get(i + 1) & 255) << 8) | (buffer.get(i + 2) & 255);
+      }
   }
 
   // Mouse agent
@@ -676,7 +993,8 @@ public class Scene extends Graph implements PConstants {
 
   /**
    * Paint method which is called just after your {@code PApplet.draw()} method. Simply
-   * render the back buffer (useful for picking) and call {@link #postDraw()}. This method
+   * read the back buffer back asynchronously (see {@link #enableAsyncPicking(boolean)}) and
+   * call {@link #postDraw()}. This method
    * is registered at the PApplet and hence you don't need to call it. Only meaningful if
    * the graph is on-screen (it the graph {@link #isOffscreen()} it even doesn't get
    * registered at the PApplet.
@@ -692,7 +1010,7 @@ public class Scene extends Graph implements PConstants {
    */
   public void draw() {
     popModelView();
-    _renderBackBuffer();
+    _readBackBuffer();
     postDraw();
     if (hasAutoFocus())
       _handleFocus();
@@ -747,7 +1065,8 @@ public class Scene extends Graph implements PConstants {
    *
    * <ol>
    * <li>{@code frontBuffer().endDraw()} and hence there's no need to explicitly call it</li>
-   * <li>{@code _renderBackBuffer()}: Render the back buffer (useful for picking)</li>
+   * <li>{@code _readBackBuffer()}: Read the back buffer back asynchronously (if
+   * {@link #isAsyncPickingEnabled()})</li>
    * <li>{@link #postDraw()}</li>
    * <li>{@link #_handleFocus()} if {@link #hasAutoFocus()} is {@code true}</li>
    * </ol>
@@ -772,7 +1091,7 @@ public class Scene extends Graph implements PConstants {
           + "endDraw() and they cannot be nested. Check your implementation!");
     popModelView();
     frontBuffer().endDraw();
-    _renderBackBuffer();
+    _readBackBuffer();
     postDraw();
     _lastDisplay = TimingHandler.frameCount;
     if (hasAutoFocus())
@@ -1208,9 +1527,10 @@ public class Scene extends Graph implements PConstants {
     _targetPGraphics.pushMatrix();
     applyTransformation(_targetPGraphics, node);
     node.visit();
-    if (!node.isCulled())
-      for (Node child : node.children())
-        _visit(child);
+  }
+
+  @Override
+  protected void _leave() {
     _targetPGraphics.popMatrix();
   }
 
@@ -15,7 +15,6 @@ import frames.primitives.Frame;
 import processing.core.PApplet;
 import processing.core.PGraphics;
 import processing.core.PShape;
-import processing.core.PVector;
 import processing.opengl.PGraphicsOpenGL;
 
 /**
@@ -167,18 +166,7 @@ public class Shape extends Node {
         return;
       }
     this._Precision = precision;
-    // enables or disables the grabbing buffer
-    if (precision() == Precision.EXACT) {
-      graph()._bbEnabled = true;
-      return;
-    }
-    for (Node node : graph().nodes())
-      if (node instanceof Shape)
-        if (node.precision() == Precision.EXACT) {
-          graph()._bbEnabled = true;
-          return;
-        }
-    graph()._bbEnabled = false;
+    _cachesModified();
   }
 
   /**
@@ -270,18 +258,20 @@ public class Shape extends Node {
       pGraphics.popMatrix();
     } else {
       if (precision() == Precision.EXACT) {
-        float r = (float) (_id & 255) / 255.f;
-        float g = (float) ((_id >> 8) & 255) / 255.f;
-        float b = (float) ((_id >> 16) & 255) / 255.f;
+        int id = _id();
+        float r = (float) ((id >> 16) & 255) / 255.f;
+        float g = (float) ((id >> 8) & 255) / 255.f;
+        float b = (float) (id & 255) / 255.f;
+        float a = (float) ((id >>> 24) & 255) / 255.f;
         // funny, only safe way. Otherwise break things horribly when setting shapes
         // and there are more than one iFrame
         pGraphics.shader(graph()._triangleShader);
         pGraphics.shader(graph()._lineShader, PApplet.LINES);
         pGraphics.shader(graph()._pointShader, PApplet.POINTS);
 
-        graph()._triangleShader.set("id", new PVector(r, g, b));
-        graph()._lineShader.set("id", new PVector(r, g, b));
-        graph()._pointShader.set("id", new PVector(r, g, b));
+        graph()._triangleShader.set("id", r, g, b, a);
+        graph()._lineShader.set("id", r, g, b, a);
+        graph()._pointShader.set("id", r, g, b, a);
         pGraphics.pushStyle();
         pGraphics.pushMatrix();
                 /*
@@ -378,7 +368,8 @@ public class Shape extends Node {
    * color buffer (see {@link frames.processing.Scene#backBuffer()}). This method
    * compares the color of the {@link frames.processing.Scene#backBuffer()} at
    * {@code (x,y)} with the shape id. Returns true if both colors are the same, and false
-   * otherwise.
+   * otherwise. Only a small region around {@code (x,y)} of the back buffer is rendered,
+   * and only once per frame.
    * <p>
    * This method is only meaningful when this shape is not an eye.
    *
@@ -391,10 +382,6 @@ public class Shape extends Node {
     }
     if (precision() != Precision.EXACT)
       return super.track(x, y);
-    int index = (int) y * graph().width() + (int) x;
-    if (graph().backBuffer().pixels != null)
-      if ((0 <= index) && (index < graph().backBuffer().pixels.length))
-        return graph().backBuffer().pixels[index] == _id();
-    return false;
+    return graph()._backBufferPixel((int) x, (int) y) == _id();
   }
 }